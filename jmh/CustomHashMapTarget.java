@@ -0,0 +1,36 @@
+import benchmark.MapTarget;
+
+/**
+ * {@link CustomHashMap} behind {@link MapTarget}, for {@link benchmark.CustomHashMapBenchmark}.
+ */
+public class CustomHashMapTarget implements MapTarget {
+
+    private final CustomHashMap<Integer, Integer> map = new CustomHashMap<>();
+
+    @Override
+    public MapTarget empty() {
+        return new CustomHashMapTarget();
+    }
+
+    @Override
+    public void put(Integer key, Integer value) {
+        map.put(key, value);
+    }
+
+    @Override
+    public Integer get(Integer key) {
+        return map.get(key);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public long sumValues() {
+        long[] sum = new long[1];
+        map.forEach((key, value) -> sum[0] += value);
+        return sum[0];
+    }
+}
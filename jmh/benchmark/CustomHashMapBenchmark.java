@@ -0,0 +1,88 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code CustomHashMap}: one operation builds, reads or aggregates a whole map of {@code size} entries.
+ * <p>
+ * Usage: {@code gradle jmh -Pjmh.includes=CustomHashMap}; 100M entries need
+ * {@code -p size=100000000 -jvmArgs -Xmx16g} on the JMH jar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomHashMapBenchmark {
+
+    @Param({"1000", "1000000"})
+    int size;
+
+    private MapTarget empty;
+    private MapTarget map;
+    private Integer[] keys;
+    private Integer[] missing;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        empty = (MapTarget) Class.forName("CustomHashMapTarget").getDeclaredConstructor().newInstance();
+        keys = new Integer[size];
+        missing = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i * 0x9E3779B1 & Integer.MAX_VALUE; // spread over the int range, not consecutive buckets
+            missing[i] = -1 - keys[i];
+        }
+        map = filled();
+    }
+
+    @Benchmark
+    public int put() {
+        return filled().size();
+    }
+
+    @Benchmark
+    public long getHit() {
+        long sum = 0;
+        for (Integer key : keys) {
+            sum += map.get(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int getMiss() {
+        int found = 0;
+        for (Integer key : missing) {
+            if (map.get(key) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public long forEach() {
+        return map.sumValues();
+    }
+
+    private MapTarget filled() {
+        MapTarget filled = empty.empty();
+        for (Integer key : keys) {
+            filled.put(key, key);
+        }
+        return filled;
+    }
+}
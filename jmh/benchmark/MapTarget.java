@@ -0,0 +1,26 @@
+package benchmark;
+
+/**
+ * The map operations {@link CustomHashMapBenchmark} measures. JMH does not accept benchmarks in the
+ * default package, and a named package cannot refer to {@code CustomHashMap}, which is in the default
+ * package, so the map is reached through this interface. The only implementation is
+ * {@code CustomHashMapTarget}; the call site stays monomorphic and the JIT inlines it.
+ */
+public interface MapTarget {
+
+    /**
+     * A new, empty map of the same kind.
+     */
+    MapTarget empty();
+
+    void put(Integer key, Integer value);
+
+    Integer get(Integer key);
+
+    int size();
+
+    /**
+     * Sum of all values, through the map's {@code forEach}.
+     */
+    long sumValues();
+}
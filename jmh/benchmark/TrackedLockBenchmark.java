@@ -0,0 +1,119 @@
+package benchmark;
+
+import Threads.deadlock.LockOrderGraph;
+import Threads.deadlock.TrackedLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cost of {@link TrackedLock} compared with a raw {@link ReentrantLock}. This lives in {@code benchmark}
+ * rather than next to TrackedLock because JMH's generated code imports its {@code @Threads} annotation,
+ * which hides a package named {@code Threads}.
+ * <ul>
+ *     <li>Uncontended: one operation takes {@code locks} locks nested in a fixed order and releases them,
+ *     so the time per operation divided by {@code locks} is the cost of one acquire/release pair. With
+ *     more than one lock this includes the order check against every held lock.</li>
+ *     <li>Contended: 4 threads take one shared lock in a loop. The tracked lock's wait histogram and the
+ *     number of reported deadlocks (expected 0) are printed at the end of the run.</li>
+ * </ul>
+ * Usage: {@code gradle jmh -Pjmh.includes=TrackedLock}
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrackedLockBenchmark {
+
+    @State(Scope.Thread)
+    public static class Nested {
+        @Param({"1", "2", "4"})
+        int locks;
+
+        Lock[] reentrant;
+        Lock[] tracked;
+        long counter;
+
+        @Setup
+        public void setUp() {
+            reentrant = new Lock[locks];
+            tracked = new Lock[locks];
+            for (int i = 0; i < locks; i++) {
+                reentrant[i] = new ReentrantLock();
+                tracked[i] = new TrackedLock("lock" + i);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        final Lock reentrant = new ReentrantLock();
+        final TrackedLock tracked = new TrackedLock("shared");
+        long counter;
+
+        @TearDown
+        public void report() {
+            System.out.println();
+            System.out.println(tracked.waits().summary());
+            System.out.println("Potential deadlocks reported: " + LockOrderGraph.reported().size()); // Expected: 0
+        }
+    }
+
+    @Benchmark
+    public long reentrantLock(Nested state) {
+        return nested(state.reentrant, state);
+    }
+
+    @Benchmark
+    public long trackedLock(Nested state) {
+        return nested(state.tracked, state);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long contendedReentrantLock(Shared state) {
+        return contended(state.reentrant, state);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long contendedTrackedLock(Shared state) {
+        return contended(state.tracked, state);
+    }
+
+    private static long nested(Lock[] locks, Nested state) {
+        for (Lock lock : locks) {
+            lock.lock();
+        }
+        long value = ++state.counter;
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+        return value;
+    }
+
+    private static long contended(Lock lock, Shared state) {
+        lock.lock();
+        try {
+            return ++state.counter;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package coding;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TopKFrequent}: one operation finds the 10 most frequent values in an array of {@code size}
+ * values. Values are skewed (about size/10 distinct ones, small values much more common), so both the
+ * counting map and the heap see realistic work.
+ * <p>
+ * Usage: {@code gradle jmh -Pjmh.includes=TopKFrequent}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopKFrequentBenchmark {
+
+    private static final int K = 10;
+
+    @Param({"1000", "1000000"})
+    int size;
+
+    private final TopKFrequent topK = new TopKFrequent();
+    private int[] nums;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(17);
+        int distinct = Math.max(K, size / 10);
+        nums = new int[size];
+        for (int i = 0; i < size; i++) {
+            double u = random.nextDouble();
+            nums[i] = (int) (distinct * u * u * u); // cubing pushes most draws towards 0
+        }
+    }
+
+    @Benchmark
+    public int[] topKFrequent() {
+        return topK.topKFrequent(nums, K);
+    }
+}
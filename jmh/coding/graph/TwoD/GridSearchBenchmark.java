@@ -0,0 +1,97 @@
+package coding.graph.TwoD;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The recursive grid searches in this package. {@code size} is the number of cells; grids are square.
+ * Recursion depth grows with the size of the largest connected region, so the forked JVM gets a 1 GB
+ * thread stack ({@code -jvmArgs -Xss4g} raises it for bigger grids).
+ * <ul>
+ *     <li>numIslands: random land/water grid at 55% land, which sits just above the percolation threshold,
+ *     so one island spans most of the grid</li>
+ *     <li>surroundedRegions: same layout with 'o'/'x'; the board is copied on each operation because
+ *     {@link SurroundedRegions#solve} modifies it</li>
+ *     <li>wordSearch: random letters and a word that does not occur, so every start cell is tried</li>
+ * </ul>
+ * {@link floodFill} is not included: it prints every visited cell and keeps its visited set in a static field.
+ * <p>
+ * Usage: {@code gradle jmh -Pjmh.includes=GridSearch}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss1g")
+public class GridSearchBenchmark {
+
+    private static final double LAND = 0.55;
+
+    @Param({"1000", "1000000"})
+    int size;
+
+    private char[][] islands;
+    private char[][] regions;
+    private char[][] letters;
+
+    @Setup
+    public void setUp() {
+        islands = grid('1', '0');
+        regions = grid('o', 'x');
+        SplittableRandom random = new SplittableRandom(5);
+        letters = new char[side()][side()];
+        for (char[] row : letters) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = (char) ('A' + random.nextInt(4)); // 'Z' never occurs, so the word is never found
+            }
+        }
+    }
+
+    @Benchmark
+    public int numIslands() {
+        return NumIslands.numIslands(islands);
+    }
+
+    @Benchmark
+    public char[][] surroundedRegions() {
+        char[][] copy = new char[regions.length][];
+        for (int i = 0; i < regions.length; i++) {
+            copy[i] = regions[i].clone();
+        }
+        SurroundedRegions.solve(copy);
+        return copy;
+    }
+
+    @Benchmark
+    public boolean wordSearch() {
+        return WordSearch.exist(letters, "ABCDABCDAZ");
+    }
+
+    private int side() {
+        return Math.max(1, (int) Math.sqrt(size));
+    }
+
+    private char[][] grid(char land, char water) {
+        SplittableRandom random = new SplittableRandom(3);
+        char[][] grid = new char[side()][side()];
+        for (char[] row : grid) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = random.nextDouble() < LAND ? land : water;
+            }
+        }
+        return grid;
+    }
+}
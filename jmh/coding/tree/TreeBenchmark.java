@@ -0,0 +1,96 @@
+package coding.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The recursive tree routines in this package, on a random binary search tree (depth around 2-3x log2
+ * of the size) and on a fully skewed tree where the recursion is as deep as the tree is large. The forked
+ * JVM gets a 1 GB thread stack for that ({@code -jvmArgs -Xss8g} past a few million nodes).
+ * <p>
+ * Usage: {@code gradle jmh -Pjmh.includes=Tree}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss1g")
+public class TreeBenchmark {
+
+    @Param({"1000", "1000000"})
+    int size;
+
+    private TreeNode random;
+    private TreeNode skewed;
+
+    @Setup
+    public void setUp() {
+        random = randomTree();
+        skewed = new TreeNode(0);
+        TreeNode node = skewed;
+        for (int i = 1; i < size; i++) {
+            node.right = new TreeNode(i);
+            node = node.right;
+        }
+    }
+
+    @Benchmark
+    public int sumOfAllNodes() {
+        return Main.sumOfAllNodes(random);
+    }
+
+    @Benchmark
+    public int findDepth() {
+        return Main.findDepth(random);
+    }
+
+    @Benchmark
+    public TreeNode invertTree() {
+        Main.invertTree(random); // inverting twice per call restores the original tree
+        Main.invertTree(random);
+        return random;
+    }
+
+    @Benchmark
+    public int findDepthSkewed() {
+        return Main.findDepth(skewed);
+    }
+
+    private TreeNode randomTree() {
+        SplittableRandom values = new SplittableRandom(9);
+        TreeNode root = new TreeNode(values.nextInt());
+        for (int i = 1; i < size; i++) {
+            int value = values.nextInt();
+            TreeNode node = root;
+            while (true) {
+                if (value < node.val) {
+                    if (node.left == null) {
+                        node.left = new TreeNode(value);
+                        break;
+                    }
+                    node = node.left;
+                } else {
+                    if (node.right == null) {
+                        node.right = new TreeNode(value);
+                        break;
+                    }
+                    node = node.right;
+                }
+            }
+        }
+        return root;
+    }
+}
@@ -0,0 +1,146 @@
+package lld.designPattern.behavioural.chainOfResponsibiltyPattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one log call through chains of {@code handlers} handlers: {@code handlers - 3} handlers that
+ * print no level, then Debug, Info and Error, with the minimum level at INFO and every line going to a
+ * sink that discards it. Each chain is measured twice:
+ * <ul>
+ *     <li>walk: handlers written the way LogManager's were before the dispatch table, each checking the
+ *     level and calling the next one</li>
+ *     <li>table: the LogManager handlers, which look the level up in their dispatch table</li>
+ * </ul>
+ * for an ERROR message (printed by the last handler) and a DEBUG message (filtered out).
+ * <p>
+ * Usage: {@code gradle jmh -Pjmh.includes=DispatchBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private static final LogSink DISCARD = (bytes, offset, length) -> {
+    };
+
+    @Param({"3", "20"})
+    int handlers;
+
+    private Logger walk;
+    private Logger table;
+
+    @Setup
+    public void setUp() {
+        walk = walkingChain(handlers);
+        table = tableChain(handlers);
+    }
+
+    @Benchmark
+    public void walkError() {
+        walk.log(LogLevel.ERROR, "order processed");
+    }
+
+    @Benchmark
+    public void tableError() {
+        table.log(LogLevel.ERROR, "order processed");
+    }
+
+    @Benchmark
+    public void walkDisabledDebug() {
+        walk.log(LogLevel.DEBUG, "order processed");
+    }
+
+    @Benchmark
+    public void tableDisabledDebug() {
+        table.log(LogLevel.DEBUG, "order processed");
+    }
+
+    private static Logger tableChain(int handlers) {
+        Logger chain = new DebugLogger(new InfoLogger(new ErrorLogger(null)));
+        for (int i = 3; i < handlers; i++) {
+            chain = new PassThroughLogger(chain);
+        }
+        chain.setSink(DISCARD);
+        chain.setMinLogLevel(LogLevel.INFO);
+        return chain;
+    }
+
+    private static Logger walkingChain(int handlers) {
+        Logger chain = new WalkingLogger(LogLevel.DEBUG,
+                new WalkingLogger(LogLevel.INFO, new WalkingLogger(LogLevel.ERROR, null)));
+        for (int i = 3; i < handlers; i++) {
+            chain = new WalkingLogger(null, chain);
+        }
+        chain.setMinLogLevel(LogLevel.INFO);
+        return chain;
+    }
+
+    /**
+     * A handler that prints nothing itself, e.g. one for a level this process does not use.
+     */
+    private static class PassThroughLogger extends LogManager {
+        PassThroughLogger(Logger nextLogger) {
+            super(nextLogger);
+        }
+
+        @Override
+        protected LogSink sinkFor(LogLevel level) {
+            return null;
+        }
+    }
+
+    /**
+     * A handler as LogManager's were before: check the minimum level, print its own level or call the next.
+     */
+    private static class WalkingLogger implements Logger {
+        private final LogLevel handles;
+        private final Logger nextLogger;
+        private LogLevel minLogLevel = LogLevel.INFO;
+
+        WalkingLogger(LogLevel handles, Logger nextLogger) {
+            this.handles = handles;
+            this.nextLogger = nextLogger;
+        }
+
+        @Override
+        public void log(LogLevel level, String message) {
+            logAt(level, message, System.currentTimeMillis(), Thread.currentThread().getName());
+        }
+
+        @Override
+        public void logAt(LogLevel level, String message, long timestampMillis, String threadName) {
+            if (level.getLevel() < minLogLevel.getLevel()) {
+                return;
+            }
+
+            if (level == handles) {
+                MessageFormatter.current().write(DISCARD, level, message, timestampMillis, threadName);
+            } else if (nextLogger != null) {
+                nextLogger.logAt(level, message, timestampMillis, threadName);
+            }
+        }
+
+        @Override
+        public void setMinLogLevel(LogLevel level) {
+            minLogLevel = level;
+            if (nextLogger != null) {
+                nextLogger.setMinLogLevel(level);
+            }
+        }
+    }
+}
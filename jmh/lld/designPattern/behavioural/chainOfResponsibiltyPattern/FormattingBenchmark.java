@@ -0,0 +1,83 @@
+package lld.designPattern.behavioural.chainOfResponsibiltyPattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation per log call through the whole handler chain. The calls log at ERROR, the last
+ * handler, and System.err goes to a stream that discards everything, so only the chain and the
+ * formatting are measured. Run with {@code -prof gc} (the {@code gradle jmh} default) and look at
+ * {@code gc.alloc.rate.norm}, the bytes allocated per call:
+ * <ul>
+ *     <li>stringFormat: the line built with {@link LogManager#formatMessage} and printed with println,
+ *     as the handlers did before</li>
+ *     <li>plain: {@code log(ERROR, message)}</li>
+ *     <li>oneArg, twoArgs: {@code log(ERROR, "... {} ...", ...)} with a long and with two Strings</li>
+ *     <li>disabled: {@code log(DEBUG, "... {} ...", value)} below the minimum level</li>
+ * </ul>
+ * All but stringFormat should allocate nothing once warmed up.
+ * <p>
+ * Usage: {@code gradle jmh -Pjmh.includes=FormattingBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormattingBenchmark {
+
+    private final ErrorLogger handler = new ErrorLogger(null);
+    private final Logger chain = new DebugLogger(new InfoLogger(handler));
+    private PrintStream err;
+    private long counter;
+
+    @Setup
+    public void discardErr() {
+        err = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream(), true));
+    }
+
+    @TearDown
+    public void restoreErr() {
+        System.setErr(err);
+    }
+
+    @Benchmark
+    public void stringFormat() {
+        System.err.println(handler.formatMessage(LogLevel.ERROR, "order " + ++counter + " processed"));
+    }
+
+    @Benchmark
+    public void plain() {
+        chain.log(LogLevel.ERROR, "order processed");
+    }
+
+    @Benchmark
+    public void oneArg() {
+        chain.log(LogLevel.ERROR, "order {} processed", ++counter);
+    }
+
+    @Benchmark
+    public void twoArgs() {
+        chain.log(LogLevel.ERROR, "order {} processed by {}", "A-17", "alice");
+    }
+
+    @Benchmark
+    public void disabled() {
+        chain.log(LogLevel.DEBUG, "order {} processed", ++counter);
+    }
+}
@@ -0,0 +1,213 @@
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * {@link CustomHashMap} used as a bounded cache.
+ * <p>
+ * Entries live in the same bucket array as the parent map; each one additionally carries an intrusive
+ * doubly linked list node ({@link CacheEntry#before}/{@link CacheEntry#after}) and a small amount of
+ * policy state, so the eviction policy can reorder entries without any extra allocation. When a put
+ * pushes the size past {@code maximumSize}, the policy picks a victim and the map removes it.
+ * Hits, misses and evictions are counted.
+ */
+public class BoundedCustomHashMap<K, V> extends CustomHashMap<K, V> {
+
+    private final int maximumSize;
+    private final EvictionPolicy<K, V> policy;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public BoundedCustomHashMap(int maximumSize, EvictionPolicy<K, V> policy) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.policy = policy;
+    }
+
+    public static <K, V> BoundedCustomHashMap<K, V> lru(int maximumSize) {
+        return new BoundedCustomHashMap<>(maximumSize, new LruEvictionPolicy<>());
+    }
+
+    public static <K, V> BoundedCustomHashMap<K, V> lfu(int maximumSize) {
+        return new BoundedCustomHashMap<>(maximumSize, new LfuEvictionPolicy<>());
+    }
+
+    public static <K, V> BoundedCustomHashMap<K, V> wTinyLfu(int maximumSize) {
+        return new BoundedCustomHashMap<>(maximumSize, new WTinyLfuEvictionPolicy<>(maximumSize));
+    }
+
+    public static void main(String[] args) {
+        BoundedCustomHashMap<String, Integer> cache = lru(3);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a"); // "b" is now the least recently used
+        cache.put("d", 4);
+
+        System.out.println("Value for 'b': " + cache.get("b")); // Expected: null (evicted)
+        System.out.println("Value for 'a': " + cache.get("a")); // Expected: 1
+        System.out.println("Size: " + cache.size()); // Expected: 3
+        System.out.println(cache.stats()); // Expected: hits=2 misses=1 evictions=1
+
+        BoundedCustomHashMap<String, Integer> lfu = lfu(2);
+        lfu.put("hot", 1);
+        lfu.get("hot");
+        lfu.get("hot");
+        lfu.put("cold", 2);
+        lfu.put("new", 3); // evicts "cold", the least frequently used
+        System.out.println("LFU keeps 'hot': " + lfu.get("hot") + ", drops 'cold': " + lfu.get("cold"));
+    }
+
+    @Override
+    public V get(K key) {
+        Entry<K, V> entry = getEntry(key);
+        if (entry == null) {
+            misses++;
+            policy.onMiss(hash(key));
+            return null;
+        }
+        hits++;
+        policy.onAccess((CacheEntry<K, V>) entry);
+        return entry.value;
+    }
+
+    /**
+     * Inserts one entry at a time, because every insertion may evict and the eviction policy is not thread-safe.
+     */
+    @Override
+    public void putAll(ForkJoinPool pool, Map<? extends K, ? extends V> source) {
+        source.forEach(this::put);
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    public long evictions() {
+        return evictions;
+    }
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    public String stats() {
+        return String.format("hits=%d misses=%d evictions=%d hitRate=%.4f", hits, misses, evictions, hitRate());
+    }
+
+    @Override
+    Entry<K, V> newEntry(int hash, K key, V value, Entry<K, V> next) {
+        return new CacheEntry<>(hash, key, value, next);
+    }
+
+    @Override
+    void afterEntryAccess(Entry<K, V> entry) {
+        policy.onAccess((CacheEntry<K, V>) entry);
+    }
+
+    @Override
+    void afterEntryInsertion(Entry<K, V> entry) {
+        policy.onInsert((CacheEntry<K, V>) entry);
+        while (size > maximumSize) {
+            CacheEntry<K, V> victim = policy.victim();
+            removeEntry(victim.key);
+            evictions++;
+        }
+    }
+
+    @Override
+    void afterEntryRemoval(Entry<K, V> entry) {
+        policy.onRemove((CacheEntry<K, V>) entry);
+    }
+
+    /**
+     * Decides which entry leaves the cache. The map reports every access, insertion and removal;
+     * {@link #victim()} is called while the cache is over its maximum size, and the returned entry
+     * (which may be the one just inserted) is removed right after.
+     */
+    public interface EvictionPolicy<K, V> {
+
+        void onAccess(CacheEntry<K, V> entry);
+
+        void onInsert(CacheEntry<K, V> entry);
+
+        void onRemove(CacheEntry<K, V> entry);
+
+        CacheEntry<K, V> victim();
+
+        /**
+         * A lookup that found nothing; frequency-based policies count it too.
+         */
+        default void onMiss(int hash) {
+        }
+    }
+
+    public static class CacheEntry<K, V> extends Entry<K, V> {
+        CacheEntry<K, V> before;
+        CacheEntry<K, V> after;
+        // access count or queue id, depending on the policy
+        int frequency;
+        int queue;
+
+        public CacheEntry(int hash, K key, V value, Entry<K, V> next) {
+            super(hash, key, value, next);
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list threaded through {@link CacheEntry#before}/{@link CacheEntry#after}.
+     * The head is the eldest entry.
+     */
+    static class EntryList<K, V> {
+        CacheEntry<K, V> head;
+        CacheEntry<K, V> tail;
+        int size;
+
+        void addLast(CacheEntry<K, V> entry) {
+            entry.after = null;
+            entry.before = tail;
+            if (tail == null) {
+                head = entry;
+            } else {
+                tail.after = entry;
+            }
+            tail = entry;
+            size++;
+        }
+
+        void unlink(CacheEntry<K, V> entry) {
+            if (entry.before == null) {
+                head = entry.after;
+            } else {
+                entry.before.after = entry.after;
+            }
+            if (entry.after == null) {
+                tail = entry.before;
+            } else {
+                entry.after.before = entry.before;
+            }
+            entry.before = null;
+            entry.after = null;
+            size--;
+        }
+
+        void moveToLast(CacheEntry<K, V> entry) {
+            if (tail != entry) {
+                unlink(entry);
+                addLast(entry);
+            }
+        }
+
+        boolean isEmpty() {
+            return head == null;
+        }
+    }
+}
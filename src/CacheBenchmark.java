@@ -0,0 +1,114 @@
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+
+/**
+ * Replays synthetic key traces through {@link BoundedCustomHashMap} with each eviction policy and reports
+ * hit rate and throughput. Every request is a get, followed by a put on a miss (cache-aside).
+ * <ul>
+ *     <li>zipfian: skewed popularity (exponent 0.99) over a fixed key space</li>
+ *     <li>scan-heavy: the same zipfian traffic, interrupted by long scans of keys that are never seen again</li>
+ * </ul>
+ * Usage: {@code java CacheBenchmark [requests] [keySpace] [cacheSize...]} (default 2000000 100000 1000 10000).
+ */
+public class CacheBenchmark {
+
+    private static final double ZIPF_EXPONENT = 0.99;
+    private static final int SCAN_EVERY = 20_000;
+    private static final int SCAN_LENGTH = 10_000;
+
+    public static void main(String[] args) {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int keySpace = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int[] cacheSizes = args.length > 2 ? new int[args.length - 2] : new int[]{1_000, 10_000};
+        for (int i = 2; i < args.length; i++) {
+            cacheSizes[i - 2] = Integer.parseInt(args[i]);
+        }
+
+        Integer[] zipfian = zipfianTrace(requests, keySpace, 7);
+        Integer[] scanHeavy = withScans(zipfianTrace(requests, keySpace, 11), keySpace);
+
+        System.out.printf("%-12s %-10s %10s %10s %14s%n", "trace", "policy", "cacheSize", "hitRate", "ops/sec");
+        for (int cacheSize : cacheSizes) {
+            for (int round = 0; round < 2; round++) {
+                boolean report = round == 1; // the first round warms up the JIT
+                replay("zipfian", "LRU", zipfian, cacheSize, BoundedCustomHashMap::lru, report);
+                replay("zipfian", "LFU", zipfian, cacheSize, BoundedCustomHashMap::lfu, report);
+                replay("zipfian", "W-TinyLFU", zipfian, cacheSize, BoundedCustomHashMap::wTinyLfu, report);
+                replay("scan-heavy", "LRU", scanHeavy, cacheSize, BoundedCustomHashMap::lru, report);
+                replay("scan-heavy", "LFU", scanHeavy, cacheSize, BoundedCustomHashMap::lfu, report);
+                replay("scan-heavy", "W-TinyLFU", scanHeavy, cacheSize, BoundedCustomHashMap::wTinyLfu, report);
+            }
+        }
+    }
+
+    private static void replay(String trace, String policy, Integer[] keys, int cacheSize,
+                               IntFunction<BoundedCustomHashMap<Integer, Integer>> factory, boolean report) {
+        BoundedCustomHashMap<Integer, Integer> cache = factory.apply(cacheSize);
+        long start = System.nanoTime();
+        for (Integer key : keys) {
+            if (cache.get(key) == null) {
+                cache.put(key, key);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (report) {
+            System.out.printf("%-12s %-10s %10d %10.4f %14.0f%n",
+                    trace, policy, cacheSize, cache.hitRate(), keys.length * 1e9 / elapsed);
+        }
+    }
+
+    /**
+     * Samples keys 0..keySpace-1 where key k is requested with probability proportional to 1/(k+1)^s.
+     * Keys are shuffled afterwards so popularity does not follow hash order.
+     */
+    private static Integer[] zipfianTrace(int requests, int keySpace, long seed) {
+        double[] cumulative = new double[keySpace];
+        double sum = 0;
+        for (int k = 0; k < keySpace; k++) {
+            sum += 1 / Math.pow(k + 1, ZIPF_EXPONENT);
+            cumulative[k] = sum;
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        Integer[] keyNames = new Integer[keySpace];
+        for (int k = 0; k < keySpace; k++) {
+            keyNames[k] = k;
+        }
+        for (int k = keySpace - 1; k > 0; k--) {
+            int other = random.nextInt(k + 1);
+            Integer tmp = keyNames[k];
+            keyNames[k] = keyNames[other];
+            keyNames[other] = tmp;
+        }
+
+        Integer[] trace = new Integer[requests];
+        for (int i = 0; i < requests; i++) {
+            double target = random.nextDouble() * sum;
+            int low = 0;
+            int high = keySpace - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            trace[i] = keyNames[low];
+        }
+        return trace;
+    }
+
+    /**
+     * Replaces a block of SCAN_LENGTH requests out of every SCAN_EVERY with a sequential scan of fresh keys.
+     */
+    private static Integer[] withScans(Integer[] trace, int keySpace) {
+        int nextScanKey = keySpace;
+        for (int start = SCAN_EVERY - SCAN_LENGTH; start < trace.length; start += SCAN_EVERY) {
+            for (int i = start; i < Math.min(start + SCAN_LENGTH, trace.length); i++) {
+                trace[i] = nextScanKey++;
+            }
+        }
+        return trace;
+    }
+}
@@ -0,0 +1,153 @@
+import java.util.function.IntFunction;
+
+/**
+ * Lookup cost of {@link CustomHashMap} (hash spreading + treeified buckets) against the map as it was
+ * before either ({@link UnspreadChainedMap}) on key sets with poor or hostile hash codes.
+ * Numbers that differ only above bit 16 all land in bucket 0 without spreading; with it they spread out.
+ * With every key in one bucket the chained map costs O(n) per get; the treeified one stays O(log n),
+ * so its ns/get should grow by a constant step each time the size quadruples.
+ * <p>
+ * Usage: {@code java CollisionBenchmark [size...]} (default 1024 4096 16384).
+ */
+public class CollisionBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[]{1024, 4096, 16384} : new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        System.out.printf("%-24s %8s %18s %18s%n", "keys", "size", "chained ns/get", "treeified ns/get");
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1; // the first round warms up the JIT
+            for (int size : sizes) {
+                run("multiples of 2^16", size, i -> i << 16, report);
+                run("colliding strings", size, CollisionBenchmark::collidingString, report);
+                run("adversarial keys", size, AdversarialKey::new, report);
+            }
+        }
+    }
+
+    private static <K> void run(String name, int size, IntFunction<K> keyFactory, boolean report) {
+        Object[] keys = new Object[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = keyFactory.apply(i);
+        }
+
+        UnspreadChainedMap<Object, Integer> chained = new UnspreadChainedMap<>();
+        CustomHashMap<Object, Integer> treeified = new CustomHashMap<>();
+        for (int i = 0; i < size; i++) {
+            chained.put(keys[i], i);
+            treeified.put(keys[i], i);
+        }
+
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (Object key : keys) {
+            checksum += chained.get(key);
+        }
+        double chainedNanos = (double) (System.nanoTime() - start) / size;
+
+        start = System.nanoTime();
+        for (Object key : keys) {
+            checksum -= treeified.get(key);
+        }
+        double treeifiedNanos = (double) (System.nanoTime() - start) / size;
+
+        if (checksum != 0) {
+            throw new IllegalStateException("maps disagree for " + name);
+        }
+        if (report) {
+            System.out.printf("%-24s %8d %18.1f %18.1f%n", name, size, chainedNanos, treeifiedNanos);
+        }
+    }
+
+    /**
+     * CustomHashMap before hashes were spread: the bucket is the raw hash code modulo the table length,
+     * and every bucket is a plain chain.
+     */
+    static final class UnspreadChainedMap<K, V> {
+        private CustomHashMap.Entry<K, V>[] buckets = newTable(16);
+        private int size;
+
+        V get(K key) {
+            for (CustomHashMap.Entry<K, V> e = buckets[Math.floorMod(key.hashCode(), buckets.length)]; e != null; e = e.next) {
+                if (e.key.equals(key)) {
+                    return e.value;
+                }
+            }
+            return null;
+        }
+
+        void put(K key, V value) {
+            if (size > buckets.length * 0.75f) {
+                resize();
+            }
+            int index = Math.floorMod(key.hashCode(), buckets.length);
+            for (CustomHashMap.Entry<K, V> e = buckets[index]; e != null; e = e.next) {
+                if (e.key.equals(key)) {
+                    e.value = value;
+                    return;
+                }
+            }
+            buckets[index] = new CustomHashMap.Entry<>(key, value, buckets[index]);
+            size++;
+        }
+
+        private void resize() {
+            CustomHashMap.Entry<K, V>[] newBuckets = newTable(buckets.length * 2);
+            for (CustomHashMap.Entry<K, V> head : buckets) {
+                while (head != null) {
+                    CustomHashMap.Entry<K, V> next = head.next;
+                    int index = Math.floorMod(head.key.hashCode(), newBuckets.length);
+                    head.next = newBuckets[index];
+                    newBuckets[index] = head;
+                    head = next;
+                }
+            }
+            buckets = newBuckets;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"}) // generic array creation
+        private static <K, V> CustomHashMap.Entry<K, V>[] newTable(int length) {
+            return new CustomHashMap.Entry[length];
+        }
+    }
+
+    /**
+     * "Aa" and "BB" share a hashCode, so strings built from the same number of these blocks all collide.
+     */
+    private static String collidingString(int i) {
+        StringBuilder key = new StringBuilder();
+        for (int block = 0; block < 24; block++) {
+            key.append((i >> block & 1) == 0 ? "Aa" : "BB");
+        }
+        return key.toString();
+    }
+
+    /**
+     * Stands in for attacker-controlled keys: every instance has the same hash code.
+     */
+    static final class AdversarialKey implements Comparable<AdversarialKey> {
+        final int id;
+
+        AdversarialKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof AdversarialKey && ((AdversarialKey) o).id == id;
+        }
+
+        @Override
+        public int compareTo(AdversarialKey other) {
+            return Integer.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe version of {@link CustomHashMap} that splits the buckets into independently locked segments.
+ * <p>
+ * Writers lock only the segment that owns the key. Readers take no lock: chain links are final and
+ * values are volatile, so a reader always walks a consistent chain, and a remove copies the nodes in
+ * front of the removed one instead of unlinking it in place. Each segment keeps its own counter and
+ * {@link #size()} sums them on demand.
+ */
+public class ConcurrentCustomHashMap<K, V> {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int DEFAULT_SEGMENTS = 16;
+    private static final int SEGMENT_INITIAL_CAPACITY = 16;
+
+    final Segment<K, V>[] segments;
+    private final int segmentShift;
+    private final int segmentMask;
+
+    public ConcurrentCustomHashMap() {
+        this(DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * @param concurrencyLevel expected number of concurrent writers, rounded up to a power of two
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"}) // generic array creation
+    public ConcurrentCustomHashMap(int concurrencyLevel) {
+        int segmentCount = 1;
+        int bits = 0;
+        while (segmentCount < concurrencyLevel) {
+            segmentCount <<= 1;
+            bits++;
+        }
+        segmentShift = 32 - bits;
+        segmentMask = segmentCount - 1;
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(SEGMENT_INITIAL_CAPACITY);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentCustomHashMap<String, Integer> map = new ConcurrentCustomHashMap<>();
+
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            int offset = t * 10_000;
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    map.put("key" + (offset + i), offset + i);
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        System.out.println("Size after 4 writers: " + map.size()); // Expected: 40000
+        System.out.println("Value for 'key25000': " + map.get("key25000")); // Expected: 25000
+        System.out.println("Removed: " + map.remove("key25000")); // Expected: 25000
+        System.out.println("Value after removal: " + map.get("key25000")); // Expected: null
+        System.out.println("Size: " + map.size()); // Expected: 39999
+
+        ConcurrentCustomHashMap<Integer, Integer> numbers = new ConcurrentCustomHashMap<>(64);
+        for (int i = 0; i < 100_000; i++) {
+            numbers.put(i, i);
+        }
+        System.out.println("Segments used by keys 0..99999: " + numbers.segmentsInUse()
+                + " of " + numbers.segments.length); // Expected: 64 of 64
+    }
+
+    public V get(K key) {
+        int hash = spread(key.hashCode());
+        return segmentFor(hash).get(key, hash);
+    }
+
+    public void put(K key, V value) {
+        int hash = spread(key.hashCode());
+        segmentFor(hash).put(key, hash, value);
+    }
+
+    public V remove(K key) {
+        int hash = spread(key.hashCode());
+        return segmentFor(hash).remove(key, hash);
+    }
+
+    public int size() {
+        long sum = 0;
+        for (Segment<K, V> segment : segments) {
+            sum += segment.count;
+        }
+        return (int) Math.min(sum, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Number of segments holding at least one entry.
+     */
+    int segmentsInUse() {
+        int used = 0;
+        for (Segment<K, V> segment : segments) {
+            if (segment.count > 0) {
+                used++;
+            }
+        }
+        return used;
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        // segments use the high bits, the table index inside a segment uses the low bits
+        return segments[(hash >>> segmentShift) & segmentMask];
+    }
+
+    /**
+     * Murmur3's 32-bit finalizer. Every input bit affects every output bit, so both the high bits (the
+     * segment) and the low bits (the table index) differ for keys whose hash codes are small or sequential.
+     */
+    static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+
+    static final class Node<K, V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        final Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    @SuppressWarnings("serial") // never serialized; it extends ReentrantLock only to be its own lock
+    static final class Segment<K, V> extends ReentrantLock {
+        volatile AtomicReferenceArray<Node<K, V>> table;
+        volatile int count;
+        private int threshold;
+
+        Segment(int capacity) {
+            table = new AtomicReferenceArray<>(capacity);
+            threshold = (int) (capacity * LOAD_FACTOR);
+        }
+
+        V get(K key, int hash) {
+            AtomicReferenceArray<Node<K, V>> tab = table;
+            Node<K, V> current = tab.get(hash & (tab.length() - 1));
+            while (current != null) {
+                if (current.hash == hash && current.key.equals(key)) {
+                    return current.value;
+                }
+                current = current.next;
+            }
+            return null;
+        }
+
+        void put(K key, int hash, V value) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                int index = hash & (tab.length() - 1);
+                Node<K, V> head = tab.get(index);
+                for (Node<K, V> current = head; current != null; current = current.next) {
+                    if (current.hash == hash && current.key.equals(key)) {
+                        current.value = value;
+                        return;
+                    }
+                }
+                tab.set(index, new Node<>(hash, key, value, head));
+                if (++count > threshold) {
+                    resize(tab);
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        V remove(K key, int hash) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                int index = hash & (tab.length() - 1);
+                Node<K, V> head = tab.get(index);
+                Node<K, V> target = head;
+                while (target != null && !(target.hash == hash && target.key.equals(key))) {
+                    target = target.next;
+                }
+                if (target == null) {
+                    return null;
+                }
+                // copy the nodes in front of the target so readers on the old chain are unaffected
+                Node<K, V> newHead = target.next;
+                for (Node<K, V> current = head; current != target; current = current.next) {
+                    newHead = new Node<>(current.hash, current.key, current.value, newHead);
+                }
+                tab.set(index, newHead);
+                count--;
+                return target.value;
+            } finally {
+                unlock();
+            }
+        }
+
+        private void resize(AtomicReferenceArray<Node<K, V>> oldTable) {
+            int newCapacity = oldTable.length() * 2;
+            AtomicReferenceArray<Node<K, V>> newTable = new AtomicReferenceArray<>(newCapacity);
+            for (int i = 0; i < oldTable.length(); i++) {
+                for (Node<K, V> current = oldTable.get(i); current != null; current = current.next) {
+                    int newIndex = current.hash & (newCapacity - 1);
+                    newTable.set(newIndex, new Node<>(current.hash, current.key, current.value, newTable.get(newIndex)));
+                }
+            }
+            threshold = (int) (newCapacity * LOAD_FACTOR);
+            table = newTable;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Multi-threaded throughput of a {@code synchronized} {@link CustomHashMap},
+ * {@link ConcurrentHashMap} and the lock-striped {@link ConcurrentCustomHashMap}.
+ * Each thread runs a 90% get / 10% put mix over a pre-filled key space.
+ * <p>
+ * Usage: {@code java ConcurrentMapBenchmark [maxThreads] [keys] [millisPerRun]} (defaults 64, 1000000, 1000).
+ */
+public class ConcurrentMapBenchmark {
+
+    private static final int WRITE_PERCENT = 10;
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int keyCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        long millis = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+
+        Integer[] keys = new Integer[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = i;
+        }
+
+        CustomHashMap<Integer, Integer> plain = new CustomHashMap<>();
+        ConcurrentHashMap<Integer, Integer> jdk = new ConcurrentHashMap<>();
+        ConcurrentCustomHashMap<Integer, Integer> striped = new ConcurrentCustomHashMap<>(64);
+        for (Integer key : keys) {
+            plain.put(key, key);
+            jdk.put(key, key);
+            striped.put(key, key);
+        }
+        if (keyCount >= 64 * 64 && striped.segmentsInUse() != striped.segments.length) {
+            throw new IllegalStateException("keys fill only " + striped.segmentsInUse() + " of "
+                    + striped.segments.length + " segments, so the striped map runs on fewer locks");
+        }
+
+        List<MapOps> maps = List.of(
+                new MapOps("synchronized(CustomHashMap)") {
+                    Integer get(Integer key) {
+                        synchronized (plain) {
+                            return plain.get(key);
+                        }
+                    }
+
+                    void put(Integer key, Integer value) {
+                        synchronized (plain) {
+                            plain.put(key, value);
+                        }
+                    }
+                },
+                new MapOps("ConcurrentHashMap") {
+                    Integer get(Integer key) {
+                        return jdk.get(key);
+                    }
+
+                    void put(Integer key, Integer value) {
+                        jdk.put(key, value);
+                    }
+                },
+                new MapOps("ConcurrentCustomHashMap") {
+                    Integer get(Integer key) {
+                        return striped.get(key);
+                    }
+
+                    void put(Integer key, Integer value) {
+                        striped.put(key, value);
+                    }
+                });
+
+        System.out.printf("%-30s %8s %16s%n", "map", "threads", "ops/sec");
+        for (MapOps map : maps) {
+            run(map, 1, keys, millis); // warm-up
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                double opsPerSecond = run(map, threads, keys, millis);
+                System.out.printf("%-30s %8d %16.0f%n", map.name, threads, opsPerSecond);
+            }
+        }
+    }
+
+    private static double run(MapOps map, int threads, Integer[] keys, long millis) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        long[] deadline = new long[1];
+
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            Thread worker = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                long done = 0;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                while (System.nanoTime() < deadline[0]) {
+                    // check the clock once per batch so nanoTime does not dominate
+                    for (int i = 0; i < 256; i++) {
+                        Integer key = keys[random.nextInt(keys.length)];
+                        if (random.nextInt(100) < WRITE_PERCENT) {
+                            map.put(key, key);
+                        } else {
+                            map.get(key);
+                        }
+                    }
+                    done += 256;
+                }
+                operations.add(done);
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        long begin = System.nanoTime();
+        deadline[0] = begin + millis * 1_000_000;
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        return operations.sum() * 1e9 / elapsed;
+    }
+
+    private abstract static class MapOps {
+        final String name;
+
+        MapOps(String name) {
+            this.name = name;
+        }
+
+        abstract Integer get(Integer key);
+
+        abstract void put(Integer key, Integer value);
+    }
+}
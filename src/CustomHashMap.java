@@ -1,11 +1,34 @@
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongBiFunction;
 
 public class CustomHashMap<K, V> {
 
     private static final float LOAD_FACTOR = 0.75f;
-    static int size = 0;
+    // a chain longer than this becomes a balanced tree, and a tree this small or smaller becomes a chain again
+    static final int TREEIFY_THRESHOLD = 8;
+    static final int UNTREEIFY_THRESHOLD = 6;
+    // below this capacity a long chain is more likely a crowded table than bad hash codes, so resize instead
+    static final int MIN_TREEIFY_CAPACITY = 64;
+    int size = 0;
     int INITIAL_CAPACITY = 16;
     Entry<K, V>[] buckets;
+    // allocated on first treeify; treeBins[i] != null means bucket i lives in the tree and buckets[i] is null
+    TreeBin<K, V>[] treeBins;
 
     public CustomHashMap() {
         buckets = new Entry[INITIAL_CAPACITY];
@@ -43,17 +66,48 @@ public class CustomHashMap<K, V> {
         System.out.println("Value for 'key15': " + map.get("key15")); // Expected: 15
         System.out.println("Internal array length: " + map.buckets.length); // Expected: 32
 
+        System.out.println("\nTesting keys that share one hash code...");
+        // "Aa" and "BB" have the same hashCode, so every 4-block combination of them collides
+        CustomHashMap<String, Integer> collisions = new CustomHashMap<>();
+        for (int i = 0; i < 16; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int block = 0; block < 4; block++) {
+                key.append((i >> block & 1) == 0 ? "Aa" : "BB");
+            }
+            collisions.put(key.toString(), i);
+        }
+        collisions.put("AaAaAaAa", 100);
+        System.out.println("Size: " + collisions.size()); // Expected: 16
+        System.out.println("Treeified buckets: " + collisions.treeBinCount()); // Expected: 1
+        System.out.println("Value for 'AaAaAaAa': " + collisions.get("AaAaAaAa")); // Expected: 100
+        System.out.println("Value for 'BBBBBBBB': " + collisions.get("BBBBBBBB")); // Expected: 15
+
+        System.out.println("\nBulk operations...");
+        collisions.computeAll((key, value) -> value * 2);
+        long sum = collisions.reduceToLong((key, value) -> value, 0, Long::sum);
+        System.out.println("Sum after doubling: " + sum); // Expected: 2 * (100 + 1 + 2 + ... + 15) = 440
+        System.out.println("Parallel stream count of values > 20: "
+                + collisions.entrySet().parallelStream().filter(entry -> entry.getValue() > 20).count()); // Expected: 6
 
     }
 
 
     public V get(K key) {
-        int index = getKeyIndex(key);
-        Entry<K, V> current = buckets[index];
+        Entry<K, V> entry = getEntry(key);
+        return entry == null ? null : entry.value;
+    }
 
+    Entry<K, V> getEntry(K key) {
+        int hash = hash(key);
+        int index = indexFor(hash, buckets.length);
+        if (treeBins != null && treeBins[index] != null) {
+            return treeBins[index].find(hash, key);
+        }
+
+        Entry<K, V> current = buckets[index];
         while (current != null) {
-            if (current.key.equals(key)) {
-                return current.value;
+            if (current.hash == hash && current.key.equals(key)) {
+                return current;
             }
             current = current.next;
         }
@@ -66,82 +120,168 @@ public class CustomHashMap<K, V> {
             resize(buckets);
         }
 
-        int index = getKeyIndex(key);
+        Entry<K, V> newEntry = putVal(hash(key), key, value, true);
+        if (newEntry != null) {
+            size++;
+            afterEntryInsertion(newEntry);
+        }
 
+    }
+
+    /**
+     * Updates the key in place or links a new entry into its bucket. Does not touch {@code size}, so bulk
+     * operations can call it from several threads for disjoint buckets.
+     *
+     * @return the new entry, or null if an existing value was replaced
+     */
+    private Entry<K, V> putVal(int hash, K key, V value, boolean resizeIfCrowded) {
+        int index = indexFor(hash, buckets.length);
+        if (treeBins != null && treeBins[index] != null) {
+            TreeBin<K, V> tree = treeBins[index];
+            Entry<K, V> existing = tree.find(hash, key);
+            if (existing != null) {
+                existing.value = value;
+                afterEntryAccess(existing);
+                return null;
+            }
+            Entry<K, V> newEntry = newEntry(hash, key, value, null);
+            tree.insert(newEntry);
+            return newEntry;
+        }
 
         Entry<K, V> head = buckets[index];
         Entry<K, V> current = head;
+        int chainLength = 0;
         while (current != null) {
-            if (Objects.equals(current.key, key)) {
+            if (current.hash == hash && Objects.equals(current.key, key)) {
                 current.value = value;
-                return;
+                afterEntryAccess(current);
+                return null;
             }
             current = current.next;
+            chainLength++;
         }
         //if key doesn't exist add
-        Entry<K, V> newEntry = new Entry<>(key, value, head);
+        Entry<K, V> newEntry = newEntry(hash, key, value, head);
 
 
         buckets[index] = newEntry;
-        size++;
-
 
+        if (chainLength + 1 > TREEIFY_THRESHOLD) {
+            if (buckets.length >= MIN_TREEIFY_CAPACITY) {
+                treeifyBin(index);
+            } else if (resizeIfCrowded) {
+                resize(buckets);
+            }
+        }
+        return newEntry;
     }
 
-    private void resize(Entry<K, V>[] buckets) {
-        int newCapacity = buckets.length * 2;
+    /**
+     * Doubles the table. Every entry of old bucket i lands in bucket i or i + oldCapacity,
+     * so each old bucket is split into a low and a high list in a single pass.
+     */
+    private void resize(Entry<K, V>[] oldBuckets) {
+        int oldCapacity = oldBuckets.length;
+        int newCapacity = oldCapacity * 2;
 
         Entry<K, V>[] newBuckets = new Entry[newCapacity];
-        for (Entry<K, V> head : buckets) {
+        TreeBin<K, V>[] oldTreeBins = treeBins;
+        treeBins = null;
+        buckets = newBuckets;
+
+        for (int i = 0; i < oldCapacity; i++) {
+            Entry<K, V> head = oldBuckets[i];
+            if (oldTreeBins != null && oldTreeBins[i] != null) {
+                head = oldTreeBins[i].toChain();
+            }
 
+            Entry<K, V> lowHead = null;
+            Entry<K, V> highHead = null;
+            int lowCount = 0;
+            int highCount = 0;
             while (head != null) {
-                int newIndex = Math.abs(head.key.hashCode() % newCapacity);
                 Entry<K, V> next = head.next;
 
                 // re-insert into new buckets
-                head.next = newBuckets[newIndex];
-                newBuckets[newIndex] = head;
+                if ((head.hash & oldCapacity) == 0) {
+                    head.next = lowHead;
+                    lowHead = head;
+                    lowCount++;
+                } else {
+                    head.next = highHead;
+                    highHead = head;
+                    highCount++;
+                }
 
                 head = next;
             }
-
+            newBuckets[i] = lowHead;
+            newBuckets[i + oldCapacity] = highHead;
+            if (lowCount > TREEIFY_THRESHOLD) {
+                treeifyBin(i);
+            }
+            if (highCount > TREEIFY_THRESHOLD) {
+                treeifyBin(i + oldCapacity);
+            }
         }
 
-        ////
+    }
 
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void treeifyBin(int index) {
+        if (treeBins == null) {
+            treeBins = new TreeBin[buckets.length];
+        }
+        TreeBin<K, V> tree = new TreeBin<>();
+        Entry<K, V> current = buckets[index];
+        while (current != null) {
+            Entry<K, V> next = current.next;
+            tree.insert(current);
+            current = next;
+        }
+        treeBins[index] = tree;
+        buckets[index] = null;
+    }
 
-        for (Entry<K, V> head : buckets) {
-            while (head != null) {
-                int newIndex = Math.abs(head.key.hashCode() % newCapacity);
-                Entry<K, V> next = head.next;
+    public V remove(K key) {
+        Entry<K, V> removed = removeEntry(key);
+        return removed == null ? null : removed.value;
+    }
 
-                // re-insert into new buckets
-                head.next = newBuckets[newIndex];
-                newBuckets[newIndex] = head;
+    Entry<K, V> removeEntry(K key) {
 
-                head = next;
+        int hash = hash(key);
+        int index = indexFor(hash, buckets.length);
+        if (treeBins != null && treeBins[index] != null) {
+            TreeBin<K, V> tree = treeBins[index];
+            Entry<K, V> removed = tree.remove(hash, key);
+            if (removed == null) {
+                return null;
             }
+            size--;
+            if (tree.count <= UNTREEIFY_THRESHOLD) {
+                buckets[index] = tree.toChain();
+                treeBins[index] = null;
+            }
+            afterEntryRemoval(removed);
+            return removed;
         }
-        buckets = newBuckets;
-
-    }
 
-    public V remove(K key) {
-
-        int index = getKeyIndex(key);
         Entry<K, V> head = buckets[index];
         Entry<K, V> prev = null;
         Entry<K, V> current = head;
 
         while (current != null) {
-            if (current.key.equals(key)) {
+            if (current.hash == hash && current.key.equals(key)) {
                 if (prev == null) {
                     buckets[index] = current.next;
                 } else {
                     prev.next = current.next;
                 }
                 size--;
-                return current.value;
+                afterEntryRemoval(current);
+                return current;
 
 
             }
@@ -156,21 +296,766 @@ public class CustomHashMap<K, V> {
         return size;
     }
 
-    private int getKeyIndex(K key) {
-        return key.hashCode() % INITIAL_CAPACITY;
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < buckets.length; i++) {
+            forEachInBucket(i, entry -> action.accept(entry.key, entry.value));
+        }
+    }
+
+    /**
+     * Live view of the entries. Its spliterator splits the bucket array by index range, so
+     * {@code entrySet().parallelStream()} spreads the buckets over the fork-join pool.
+     * Iteration is not fail-fast: do not modify the map while iterating.
+     */
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public Spliterator<Map.Entry<K, V>> spliterator() {
+                return new EntrySpliterator<>(CustomHashMap.this, 0, buckets.length, size);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    public void putAll(Map<? extends K, ? extends V> source) {
+        putAll(ForkJoinPool.commonPool(), source);
+    }
+
+    /**
+     * Inserts all entries of {@code source} using the pool. The table is grown once up front, the incoming
+     * entries are grouped by the bucket range they hash into, and each range is filled by its own task,
+     * so no two tasks ever touch the same bucket.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void putAll(ForkJoinPool pool, Map<? extends K, ? extends V> source) {
+        Object[] incoming = source.entrySet().toArray();
+        while (size + incoming.length > buckets.length * LOAD_FACTOR) {
+            resize(buckets);
+        }
+        if (treeBins == null) {
+            treeBins = new TreeBin[buckets.length]; // tasks may treeify, and must not race to allocate this
+        }
+
+        int[] hashes = new int[incoming.length];
+        pool.invoke(new RangeTask(0, incoming.length, Math.max(4096, incoming.length / (pool.getParallelism() * 8)), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                hashes[i] = hash(((Map.Entry<K, V>) incoming[i]).getKey());
+            }
+            return 0;
+        }));
+
+        // counting sort of the incoming entries by bucket range
+        int rangeBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, pool.getParallelism() * 4 - 1));
+        int rangeShift = Math.max(0, Integer.numberOfTrailingZeros(buckets.length) - rangeBits);
+        int ranges = buckets.length >>> rangeShift;
+        int[] rangeStart = new int[ranges + 1];
+        for (int hash : hashes) {
+            rangeStart[(indexFor(hash, buckets.length) >>> rangeShift) + 1]++;
+        }
+        for (int r = 0; r < ranges; r++) {
+            rangeStart[r + 1] += rangeStart[r];
+        }
+        int[] order = new int[incoming.length];
+        int[] fill = rangeStart.clone();
+        for (int i = 0; i < hashes.length; i++) {
+            order[fill[indexFor(hashes[i], buckets.length) >>> rangeShift]++] = i;
+        }
+
+        long added = pool.invoke(new RangeTask(0, ranges, 1, (from, to) -> {
+            long count = 0;
+            for (int j = rangeStart[from]; j < rangeStart[to]; j++) {
+                Map.Entry<K, V> entry = (Map.Entry<K, V>) incoming[order[j]];
+                if (putVal(hashes[order[j]], entry.getKey(), entry.getValue(), false) != null) {
+                    count++;
+                }
+            }
+            return count;
+        }));
+        size += (int) added;
+    }
+
+    public void computeAll(BiFunction<? super K, ? super V, ? extends V> remapping) {
+        computeAll(ForkJoinPool.commonPool(), remapping);
+    }
 
+    /**
+     * Replaces every value with {@code remapping(key, value)} in parallel. Only values change,
+     * never the table structure, so the tasks need no coordination.
+     */
+    public void computeAll(ForkJoinPool pool, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        pool.invoke(new RangeTask(0, buckets.length, bulkBatch(pool), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                forEachInBucket(i, entry -> entry.value = remapping.apply(entry.key, entry.value));
+            }
+            return 0;
+        }));
+    }
+
+    public <U> U reduce(BiFunction<? super K, ? super V, ? extends U> transformer, BinaryOperator<U> reducer) {
+        return reduce(ForkJoinPool.commonPool(), transformer, reducer);
+    }
+
+    /**
+     * Transforms every entry and combines the non-null results with {@code reducer}, which must be associative.
+     *
+     * @return the combined result, or null if every transformation returned null
+     */
+    public <U> U reduce(ForkJoinPool pool, BiFunction<? super K, ? super V, ? extends U> transformer,
+                        BinaryOperator<U> reducer) {
+        return pool.invoke(new ReduceTask<>(0, buckets.length, bulkBatch(pool), transformer, reducer));
+    }
+
+    public long reduceToLong(ToLongBiFunction<? super K, ? super V> transformer, long basis, LongBinaryOperator reducer) {
+        return reduceToLong(ForkJoinPool.commonPool(), transformer, basis, reducer);
+    }
+
+    /**
+     * Primitive version of {@link #reduce}: nothing is boxed, which matters for full-table aggregations.
+     * As with ConcurrentHashMap, {@code basis} must be the identity of {@code reducer} (0 for a sum).
+     */
+    public long reduceToLong(ForkJoinPool pool, ToLongBiFunction<? super K, ? super V> transformer,
+                             long basis, LongBinaryOperator reducer) {
+        return pool.invoke(new LongReduceTask(0, buckets.length, bulkBatch(pool), transformer, basis, reducer));
+    }
+
+    private int bulkBatch(ForkJoinPool pool) {
+        return Math.max(1024, buckets.length / (pool.getParallelism() * 8));
+    }
+
+    void forEachInBucket(int index, Consumer<Entry<K, V>> action) {
+        if (treeBins != null && treeBins[index] != null) {
+            treeBins[index].forEachEntry(action);
+            return;
+        }
+        for (Entry<K, V> entry = buckets[index]; entry != null; entry = entry.next) {
+            action.accept(entry);
+        }
+    }
+
+    /**
+     * Creates the entry for a new key; subclasses return an Entry subtype carrying extra links.
+     */
+    Entry<K, V> newEntry(int hash, K key, V value, Entry<K, V> next) {
+        return new Entry<>(hash, key, value, next);
+    }
+
+    // hooks for subclasses such as BoundedCustomHashMap
+    void afterEntryAccess(Entry<K, V> entry) {
+    }
+
+    void afterEntryInsertion(Entry<K, V> entry) {
+    }
+
+    void afterEntryRemoval(Entry<K, V> entry) {
+    }
+
+    int treeBinCount() {
+        int count = 0;
+        if (treeBins != null) {
+            for (TreeBin<K, V> tree : treeBins) {
+                if (tree != null) {
+                    count++;
+                }
+            }
+        }
+        return count;
     }
 
-    public static class Entry<K, V> {
+    /**
+     * Mixes the high bits of the hash code into the low bits, which are the only ones the index uses.
+     */
+    static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int indexFor(int hash, int length) {
+        return hash & (length - 1);
+    }
+
+    public static class Entry<K, V> implements Map.Entry<K, V> {
+        final int hash;
         final K key;
         V value;
         Entry<K, V> next;
 
         public Entry(K key, V value, Entry<K, V> next) {
+            this(hash(key), key, value, next);
+        }
+
+        public Entry(int hash, K key, V value, Entry<K, V> next) {
+            this.hash = hash;
             this.key = key;
             this.value = value;
             this.next = next;
         }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V previous = this.value;
+            this.value = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry
+                    && Objects.equals(key, ((Map.Entry<?, ?>) o).getKey())
+                    && Objects.equals(value, ((Map.Entry<?, ?>) o).getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    interface RangeBody {
+        long apply(int from, int to);
+    }
+
+    /**
+     * Fork-join task over [from, to) that splits in half until a range is at most {@code batch} long,
+     * runs {@code body} on each leaf range and sums the results.
+     */
+    @SuppressWarnings("serial") // fork-join tasks here are never serialized
+    static final class RangeTask extends RecursiveTask<Long> {
+        private final int from;
+        private final int to;
+        private final int batch;
+        private final RangeBody body;
+
+        RangeTask(int from, int to, int batch, RangeBody body) {
+            this.from = from;
+            this.to = to;
+            this.batch = batch;
+            this.body = body;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= batch) {
+                return body.apply(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(from, mid, batch, body);
+            left.fork();
+            return new RangeTask(mid, to, batch, body).compute() + left.join();
+        }
+    }
+
+    @SuppressWarnings("serial") // fork-join tasks here are never serialized
+    private final class ReduceTask<U> extends RecursiveTask<U> {
+        private final int from;
+        private final int to;
+        private final int batch;
+        private final BiFunction<? super K, ? super V, ? extends U> transformer;
+        private final BinaryOperator<U> reducer;
+
+        ReduceTask(int from, int to, int batch, BiFunction<? super K, ? super V, ? extends U> transformer,
+                   BinaryOperator<U> reducer) {
+            this.from = from;
+            this.to = to;
+            this.batch = batch;
+            this.transformer = transformer;
+            this.reducer = reducer;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected U compute() {
+            if (to - from <= batch) {
+                Object[] result = new Object[1];
+                for (int i = from; i < to; i++) {
+                    forEachInBucket(i, entry -> {
+                        U value = transformer.apply(entry.key, entry.value);
+                        if (value != null) {
+                            result[0] = result[0] == null ? value : reducer.apply((U) result[0], value);
+                        }
+                    });
+                }
+                return (U) result[0];
+            }
+            int mid = (from + to) >>> 1;
+            ReduceTask<U> left = new ReduceTask<>(from, mid, batch, transformer, reducer);
+            left.fork();
+            U right = new ReduceTask<>(mid, to, batch, transformer, reducer).compute();
+            U leftResult = left.join();
+            if (leftResult == null) {
+                return right;
+            }
+            return right == null ? leftResult : reducer.apply(leftResult, right);
+        }
+    }
+
+    @SuppressWarnings("serial") // fork-join tasks here are never serialized
+    private final class LongReduceTask extends RecursiveTask<Long> {
+        private final int from;
+        private final int to;
+        private final int batch;
+        private final ToLongBiFunction<? super K, ? super V> transformer;
+        private final long basis;
+        private final LongBinaryOperator reducer;
+
+        LongReduceTask(int from, int to, int batch, ToLongBiFunction<? super K, ? super V> transformer,
+                       long basis, LongBinaryOperator reducer) {
+            this.from = from;
+            this.to = to;
+            this.batch = batch;
+            this.transformer = transformer;
+            this.basis = basis;
+            this.reducer = reducer;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= batch) {
+                long result = basis;
+                for (int i = from; i < to; i++) {
+                    if (treeBins != null && treeBins[i] != null) {
+                        long[] treeResult = {result};
+                        treeBins[i].forEachEntry(entry ->
+                                treeResult[0] = reducer.applyAsLong(treeResult[0], transformer.applyAsLong(entry.key, entry.value)));
+                        result = treeResult[0];
+                        continue;
+                    }
+                    for (Entry<K, V> entry = buckets[i]; entry != null; entry = entry.next) {
+                        result = reducer.applyAsLong(result, transformer.applyAsLong(entry.key, entry.value));
+                    }
+                }
+                return result;
+            }
+            int mid = (from + to) >>> 1;
+            LongReduceTask left = new LongReduceTask(from, mid, batch, transformer, basis, reducer);
+            left.fork();
+            long right = new LongReduceTask(mid, to, batch, transformer, basis, reducer).compute();
+            return reducer.applyAsLong(left.join(), right);
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private final EntrySpliterator<K, V> spliterator = new EntrySpliterator<>(CustomHashMap.this, 0, buckets.length, size);
+        private Entry<K, V> next;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                spliterator.tryAdvance(entry -> next = (Entry<K, V>) entry);
+            }
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> result = next;
+            next = null;
+            return result;
+        }
+    }
+
+    /**
+     * Walks buckets [index, fence). trySplit hands the lower half of the remaining buckets to a new
+     * spliterator, the same way HashMap does, so a parallel stream gets one bucket range per task.
+     */
+    static final class EntrySpliterator<K, V> implements Spliterator<Map.Entry<K, V>> {
+        private final CustomHashMap<K, V> map;
+        private int index;
+        private final int fence;
+        private long estimate;
+        // remaining entries of the bucket being walked
+        private Entry<K, V> current;
+        private List<Entry<K, V>> treeEntries;
+        private int treePosition;
+
+        EntrySpliterator(CustomHashMap<K, V> map, int index, int fence, long estimate) {
+            this.map = map;
+            this.index = index;
+            this.fence = fence;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+            while (true) {
+                if (current != null) {
+                    Entry<K, V> entry = current;
+                    current = current.next;
+                    action.accept(entry);
+                    return true;
+                }
+                if (treeEntries != null && treePosition < treeEntries.size()) {
+                    action.accept(treeEntries.get(treePosition++));
+                    return true;
+                }
+                treeEntries = null;
+                if (index >= fence) {
+                    return false;
+                }
+                int bucket = index++;
+                if (map.treeBins != null && map.treeBins[bucket] != null) {
+                    treeEntries = new ArrayList<>(map.treeBins[bucket].count);
+                    treePosition = 0;
+                    map.treeBins[bucket].forEachEntry(treeEntries::add);
+                } else {
+                    current = map.buckets[bucket];
+                }
+            }
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+            for (; current != null; current = current.next) {
+                action.accept(current);
+            }
+            if (treeEntries != null) {
+                while (treePosition < treeEntries.size()) {
+                    action.accept(treeEntries.get(treePosition++));
+                }
+                treeEntries = null;
+            }
+            for (; index < fence; index++) {
+                map.forEachInBucket(index, action::accept);
+            }
+        }
+
+        @Override
+        public Spliterator<Map.Entry<K, V>> trySplit() {
+            int low = index;
+            int mid = (low + fence) >>> 1;
+            if (low >= mid || current != null || treeEntries != null) {
+                return null;
+            }
+            index = mid;
+            estimate >>>= 1;
+            return new EntrySpliterator<>(map, low, mid, estimate);
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return (index == 0 && fence == map.buckets.length ? Spliterator.SIZED : 0)
+                    | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /**
+     * AVL tree holding the entries of one overflowing bucket, ordered by hash, then by
+     * {@link Comparable#compareTo} when both keys are of the same Comparable class, then by class name, and
+     * last by identity hash code (like {@code HashMap.tieBreakOrder}), so the order is total and every node
+     * keeps its place. Lookups are O(log n) even when every key has the same hash code, as long as the keys
+     * are Comparable. Keys that compare equal share one tree node and are chained through
+     * {@link Entry#next} behind the first one, which stays the node's key. Where only the identity hash
+     * code tells two keys apart, an equal key may have a different one, so lookups search both subtrees.
+     */
+    static class TreeBin<K, V> {
+        private static final int SEARCH_BOTH = Integer.MIN_VALUE;
+
+        TreeNode<K, V> root;
+        int count;
+        // set by put/remove so the recursive helpers can return the new subtree root
+        private Entry<K, V> found;
+
+        Entry<K, V> find(int hash, K key) {
+            return find(root, hash, key);
+        }
+
+        private static <K, V> Entry<K, V> find(TreeNode<K, V> node, int hash, K key) {
+            while (node != null) {
+                int dir = direction(hash, key, node.first);
+                if (dir == 0) {
+                    return node.find(key);
+                }
+                if (dir == SEARCH_BOTH) {
+                    Entry<K, V> match = node.find(key);
+                    if (match == null) {
+                        match = find(node.right, hash, key);
+                    }
+                    if (match != null) {
+                        return match;
+                    }
+                    dir = -1;
+                }
+                node = dir < 0 ? node.left : node.right;
+            }
+            return null;
+        }
+
+        void insert(Entry<K, V> entry) {
+            entry.next = null;
+            root = insert(root, entry);
+            count++;
+        }
+
+        Entry<K, V> remove(int hash, K key) {
+            found = null;
+            root = remove(root, hash, key);
+            Entry<K, V> removed = found;
+            found = null;
+            if (removed != null) {
+                count--;
+            }
+            return removed;
+        }
+
+        /**
+         * Flattens the tree back into a plain chain in key order.
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Entry<K, V> toChain() {
+            Entry<K, V>[] chain = new Entry[2]; // head and tail
+            appendInOrder(root, chain);
+            root = null;
+            count = 0;
+            return chain[0];
+        }
+
+        void forEachEntry(Consumer<Entry<K, V>> action) {
+            forEachEntry(root, action);
+        }
+
+        private void forEachEntry(TreeNode<K, V> node, Consumer<Entry<K, V>> action) {
+            if (node == null) {
+                return;
+            }
+            forEachEntry(node.left, action);
+            for (Entry<K, V> entry = node.first; entry != null; entry = entry.next) {
+                action.accept(entry);
+            }
+            forEachEntry(node.right, action);
+        }
+
+        private void appendInOrder(TreeNode<K, V> node, Entry<K, V>[] chain) {
+            if (node == null) {
+                return;
+            }
+            appendInOrder(node.left, chain);
+            Entry<K, V> entry = node.first;
+            while (entry != null) {
+                Entry<K, V> next = entry.next;
+                entry.next = null;
+                if (chain[0] == null) {
+                    chain[0] = entry;
+                } else {
+                    chain[1].next = entry;
+                }
+                chain[1] = entry;
+                entry = next;
+            }
+            appendInOrder(node.right, chain);
+        }
+
+        private TreeNode<K, V> insert(TreeNode<K, V> node, Entry<K, V> entry) {
+            if (node == null) {
+                return new TreeNode<>(entry);
+            }
+            int dir = direction(entry.hash, entry.key, node.first);
+            if (dir == 0) {
+                // behind the first entry, so the node's key does not change
+                entry.next = node.first.next;
+                node.first.next = entry;
+                return node;
+            }
+            if (dir == SEARCH_BOTH) {
+                dir = tieBreakOrder(entry.key, node.first.key);
+            }
+            if (dir < 0) {
+                node.left = insert(node.left, entry);
+            } else {
+                node.right = insert(node.right, entry);
+            }
+            return rebalance(node);
+        }
+
+        private TreeNode<K, V> remove(TreeNode<K, V> node, int hash, K key) {
+            if (node == null) {
+                return null;
+            }
+            int dir = direction(hash, key, node.first);
+            if (dir == SEARCH_BOTH) {
+                if (node.find(key) == null) {
+                    node.right = remove(node.right, hash, key);
+                    if (found == null) {
+                        node.left = remove(node.left, hash, key);
+                    }
+                    return found == null ? node : rebalance(node);
+                }
+                dir = 0;
+            }
+            if (dir < 0) {
+                node.left = remove(node.left, hash, key);
+            } else if (dir > 0) {
+                node.right = remove(node.right, hash, key);
+            } else {
+                found = node.unlink(key);
+                if (found == null || node.first != null) {
+                    return node;
+                }
+                // the node is empty now, so drop it from the tree
+                if (node.left == null) {
+                    return node.right;
+                }
+                if (node.right == null) {
+                    return node.left;
+                }
+                TreeNode<K, V> successor = node.right;
+                while (successor.left != null) {
+                    successor = successor.left;
+                }
+                node.first = successor.first;
+                node.right = removeMin(node.right);
+            }
+            return rebalance(node);
+        }
+
+        private TreeNode<K, V> removeMin(TreeNode<K, V> node) {
+            if (node.left == null) {
+                return node.right;
+            }
+            node.left = removeMin(node.left);
+            return rebalance(node);
+        }
+
+        private TreeNode<K, V> rebalance(TreeNode<K, V> node) {
+            node.updateHeight();
+            int balance = height(node.left) - height(node.right);
+            if (balance > 1) {
+                if (height(node.left.left) < height(node.left.right)) {
+                    node.left = rotateLeft(node.left);
+                }
+                return rotateRight(node);
+            }
+            if (balance < -1) {
+                if (height(node.right.right) < height(node.right.left)) {
+                    node.right = rotateRight(node.right);
+                }
+                return rotateLeft(node);
+            }
+            return node;
+        }
+
+        private TreeNode<K, V> rotateRight(TreeNode<K, V> node) {
+            TreeNode<K, V> pivot = node.left;
+            node.left = pivot.right;
+            pivot.right = node;
+            node.updateHeight();
+            pivot.updateHeight();
+            return pivot;
+        }
+
+        private TreeNode<K, V> rotateLeft(TreeNode<K, V> node) {
+            TreeNode<K, V> pivot = node.right;
+            node.right = pivot.left;
+            pivot.left = node;
+            node.updateHeight();
+            pivot.updateHeight();
+            return pivot;
+        }
+
+        private static int height(TreeNode<?, ?> node) {
+            return node == null ? 0 : node.height;
+        }
+
+        /**
+         * Which way {@code key} goes from the node keyed by {@code other}: by hash, then compareTo for two
+         * keys of the same Comparable class, then by class name. 0 means the keys compare equal and share
+         * the node; {@link #SEARCH_BOTH} means only the identity hash code is left to order them.
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static <K> int direction(int hash, K key, Entry<K, ?> other) {
+            if (hash != other.hash) {
+                return Integer.compare(hash, other.hash);
+            }
+            Object otherKey = other.key;
+            if (key instanceof Comparable && otherKey != null && key.getClass() == otherKey.getClass()) {
+                return Integer.signum(((Comparable) key).compareTo(otherKey));
+            }
+            if (key != null && otherKey != null) {
+                int byName = key.getClass().getName().compareTo(otherKey.getClass().getName());
+                if (byName != 0) {
+                    return byName;
+                }
+            }
+            return SEARCH_BOTH;
+        }
+
+        /**
+         * Places a key that {@link #direction} cannot order. Never 0, so such a key gets a node of its own.
+         */
+        private static int tieBreakOrder(Object key, Object other) {
+            return System.identityHashCode(key) <= System.identityHashCode(other) ? -1 : 1;
+        }
+    }
+
+    static class TreeNode<K, V> {
+        // entries that compare equal to each other, chained through Entry.next
+        Entry<K, V> first;
+        TreeNode<K, V> left;
+        TreeNode<K, V> right;
+        int height = 1;
+
+        TreeNode(Entry<K, V> first) {
+            this.first = first;
+        }
+
+        Entry<K, V> find(K key) {
+            for (Entry<K, V> entry = first; entry != null; entry = entry.next) {
+                if (Objects.equals(entry.key, key)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        Entry<K, V> unlink(K key) {
+            Entry<K, V> prev = null;
+            for (Entry<K, V> entry = first; entry != null; prev = entry, entry = entry.next) {
+                if (Objects.equals(entry.key, key)) {
+                    if (prev == null) {
+                        first = entry.next;
+                    } else {
+                        prev.next = entry.next;
+                    }
+                    entry.next = null;
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        void updateHeight() {
+            height = 1 + Math.max(TreeBin.height(left), TreeBin.height(right));
+        }
     }
 
 }
@@ -0,0 +1,65 @@
+/**
+ * Count-min sketch of 4-bit counters used by {@link WTinyLfuEvictionPolicy} to estimate how often a key
+ * was requested, including keys that are not in the cache. Sixteen counters are packed into each long,
+ * and every key maps to four counters whose minimum is the estimate.
+ * <p>
+ * After {@code 10 * maximumSize} increments every counter is halved, so the sketch follows a
+ * changing workload instead of remembering old popularity forever.
+ */
+public class FrequencySketch {
+
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int counterMask;
+    private final int sampleSize;
+    private int additions;
+
+    public FrequencySketch(int maximumSize) {
+        int length = Math.max(1, Integer.highestOneBit(Math.max(1, maximumSize) - 1) << 1);
+        table = new long[length];
+        counterMask = length * 16 - 1;
+        sampleSize = Math.max(10, 10 * maximumSize);
+    }
+
+    public void increment(int hash) {
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int counter = counterIndex(hash, i);
+            int index = counter >>> 4;
+            int shift = (counter & 15) << 2;
+            if (((table[index] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    public int frequency(int hash) {
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int counter = counterIndex(hash, i);
+            int count = (int) ((table[counter >>> 4] >>> ((counter & 15) << 2)) & MAX_COUNT);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int counterIndex(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & counterMask;
+    }
+}
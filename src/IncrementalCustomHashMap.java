@@ -0,0 +1,174 @@
+import java.util.Objects;
+
+/**
+ * {@link CustomHashMap} with incremental (amortized) resizing.
+ * <p>
+ * When the table fills up, a table twice as large is allocated, but entries are not moved in one go.
+ * Both tables stay live, and every get/put/remove moves the next {@code migrationBatch} buckets from
+ * the old table to the new one. Until the migration finishes, lookups check both tables and new keys
+ * always go into the new table. The longest pause caused by a resize is therefore the allocation of the
+ * new array plus a few buckets, instead of a rehash of every entry.
+ */
+public class IncrementalCustomHashMap<K, V> {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int DEFAULT_MIGRATION_BATCH = 8;
+
+    private final int migrationBatch;
+    CustomHashMap.Entry<K, V>[] buckets;
+    // non-null only while a migration is in progress
+    CustomHashMap.Entry<K, V>[] newBuckets;
+    // next bucket of the old table to migrate
+    private int migrationIndex;
+    int size = 0;
+
+    public IncrementalCustomHashMap() {
+        this(DEFAULT_MIGRATION_BATCH);
+    }
+
+    /**
+     * @param migrationBatch number of old buckets moved on every operation while a resize is in progress
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public IncrementalCustomHashMap(int migrationBatch) {
+        if (migrationBatch < 1) {
+            throw new IllegalArgumentException("migrationBatch must be positive: " + migrationBatch);
+        }
+        this.migrationBatch = migrationBatch;
+        buckets = new CustomHashMap.Entry[INITIAL_CAPACITY];
+    }
+
+    public static void main(String[] args) {
+        IncrementalCustomHashMap<String, Integer> map = new IncrementalCustomHashMap<>(1);
+        for (int i = 0; i < 13; i++) {
+            map.put("key" + i, i);
+        }
+        // the 13th put crossed 16 * 0.75, so both tables are live now
+        System.out.println("Migrating: " + map.isMigrating()); // Expected: true
+        System.out.println("Value for 'key3' during migration: " + map.get("key3")); // Expected: 3
+        System.out.println("Removed 'key5': " + map.remove("key5")); // Expected: 5
+
+        for (int i = 0; i < 16; i++) {
+            map.get("key0");
+        }
+        System.out.println("Migrating after 16 more operations: " + map.isMigrating()); // Expected: false
+        System.out.println("Internal array length: " + map.buckets.length); // Expected: 32
+        System.out.println("Size: " + map.size()); // Expected: 12
+    }
+
+    public V get(K key) {
+        migrateStep();
+        CustomHashMap.Entry<K, V> entry = findEntry(key);
+        return entry == null ? null : entry.value;
+    }
+
+    public void put(K key, V value) {
+        migrateStep();
+
+        CustomHashMap.Entry<K, V> existing = findEntry(key);
+        if (existing != null) {
+            existing.value = value;
+            return;
+        }
+
+        CustomHashMap.Entry<K, V>[] target = newBuckets != null ? newBuckets : buckets;
+        int index = indexFor(key, target.length);
+        target[index] = new CustomHashMap.Entry<>(key, value, target[index]);
+        size++;
+
+        if (newBuckets == null && size > buckets.length * LOAD_FACTOR) {
+            startMigration();
+        }
+    }
+
+    public V remove(K key) {
+        migrateStep();
+        V removed = removeFrom(buckets, key);
+        if (removed == null && newBuckets != null) {
+            removed = removeFrom(newBuckets, key);
+        }
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isMigrating() {
+        return newBuckets != null;
+    }
+
+    private CustomHashMap.Entry<K, V> findEntry(K key) {
+        CustomHashMap.Entry<K, V> entry = findIn(buckets, key);
+        if (entry == null && newBuckets != null) {
+            entry = findIn(newBuckets, key);
+        }
+        return entry;
+    }
+
+    private CustomHashMap.Entry<K, V> findIn(CustomHashMap.Entry<K, V>[] table, K key) {
+        CustomHashMap.Entry<K, V> current = table[indexFor(key, table.length)];
+        while (current != null) {
+            if (Objects.equals(current.key, key)) {
+                return current;
+            }
+            current = current.next;
+        }
+        return null;
+    }
+
+    private V removeFrom(CustomHashMap.Entry<K, V>[] table, K key) {
+        int index = indexFor(key, table.length);
+        CustomHashMap.Entry<K, V> prev = null;
+        CustomHashMap.Entry<K, V> current = table[index];
+
+        while (current != null) {
+            if (Objects.equals(current.key, key)) {
+                if (prev == null) {
+                    table[index] = current.next;
+                } else {
+                    prev.next = current.next;
+                }
+                size--;
+                return current.value;
+            }
+            prev = current;
+            current = current.next;
+        }
+        return null;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void startMigration() {
+        newBuckets = new CustomHashMap.Entry[buckets.length * 2];
+        migrationIndex = 0;
+    }
+
+    private void migrateStep() {
+        if (newBuckets == null) {
+            return;
+        }
+        int end = Math.min(migrationIndex + migrationBatch, buckets.length);
+        for (; migrationIndex < end; migrationIndex++) {
+            CustomHashMap.Entry<K, V> head = buckets[migrationIndex];
+            buckets[migrationIndex] = null;
+            while (head != null) {
+                CustomHashMap.Entry<K, V> next = head.next;
+                int newIndex = indexFor(head.key, newBuckets.length);
+                head.next = newBuckets[newIndex];
+                newBuckets[newIndex] = head;
+                head = next;
+            }
+        }
+        if (migrationIndex == buckets.length) {
+            buckets = newBuckets;
+            newBuckets = null;
+        }
+    }
+
+    private int indexFor(K key, int length) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (length - 1);
+    }
+}
@@ -0,0 +1,223 @@
+import java.util.Arrays;
+
+/**
+ * Open-addressing sibling of {@link CustomHashMap} for int keys and int values.
+ * Keys and values live in two flat arrays and collisions are resolved by linear probing,
+ * so a lookup touches one or two cache lines and a put never allocates an entry object.
+ * Key 0 marks a free slot, so the real key 0 is stored outside the table.
+ */
+public class IntIntHashMap {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int FREE_KEY = 0;
+
+    private final int noEntryValue;
+    int[] keys;
+    int[] values;
+    int size = 0;
+    private int mask;
+    private int threshold;
+
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public IntIntHashMap() {
+        this(16, 0);
+    }
+
+    /**
+     * @param expectedSize number of entries the map should hold without resizing
+     * @param noEntryValue value returned by get/remove when the key is absent
+     */
+    public IntIntHashMap(int expectedSize, int noEntryValue) {
+        this.noEntryValue = noEntryValue;
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public static void main(String[] args) {
+        IntIntHashMap map = new IntIntHashMap(4, -1);
+        map.put(1, 10);
+        map.put(17, 170);
+        map.put(0, 5);
+
+        System.out.println("Value for key 17: " + map.get(17)); // Expected: 170
+        System.out.println("Value for key 0: " + map.get(0)); // Expected: 5
+        System.out.println("Value for key 3: " + map.get(3)); // Expected: -1
+
+        System.out.println("Removed: " + map.remove(1)); // Expected: 10
+        System.out.println("Value for key 17 after removal: " + map.get(17)); // Expected: 170
+
+        for (int i = 100; i < 200; i++) {
+            map.put(i, i * 2);
+        }
+        System.out.println("Size: " + map.size()); // Expected: 102
+        System.out.println("Value for key 150: " + map.get(150)); // Expected: 300
+        System.out.println("Table length: " + map.keys.length); // Expected: 256
+    }
+
+    public int get(int key) {
+        if (key == FREE_KEY) {
+            return hasZeroKey ? zeroValue : noEntryValue;
+        }
+        int index = getKeyIndex(key);
+        while (true) {
+            int current = keys[index];
+            if (current == key) {
+                return values[index];
+            }
+            if (current == FREE_KEY) {
+                return noEntryValue;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(int key) {
+        if (key == FREE_KEY) {
+            return hasZeroKey;
+        }
+        int index = getKeyIndex(key);
+        while (true) {
+            int current = keys[index];
+            if (current == key) {
+                return true;
+            }
+            if (current == FREE_KEY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * @return the previous value, or the no-entry value if the key was absent
+     */
+    public int put(int key, int value) {
+        if (key == FREE_KEY) {
+            int previous = hasZeroKey ? zeroValue : noEntryValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+
+        int index = getKeyIndex(key);
+        while (true) {
+            int current = keys[index];
+            if (current == FREE_KEY) {
+                keys[index] = key;
+                values[index] = value;
+                if (++size > threshold) {
+                    resize();
+                }
+                return noEntryValue;
+            }
+            if (current == key) {
+                int previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes the key and shifts the following entries of its probe run back by one,
+     * so lookups never need tombstones.
+     */
+    public int remove(int key) {
+        if (key == FREE_KEY) {
+            if (!hasZeroKey) {
+                return noEntryValue;
+            }
+            hasZeroKey = false;
+            size--;
+            return zeroValue;
+        }
+
+        int index = getKeyIndex(key);
+        while (true) {
+            int current = keys[index];
+            if (current == FREE_KEY) {
+                return noEntryValue;
+            }
+            if (current == key) {
+                int previous = values[index];
+                shiftKeys(index);
+                size--;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    private void shiftKeys(int hole) {
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            int current = keys[index];
+            if (current == FREE_KEY) {
+                keys[hole] = FREE_KEY;
+                return;
+            }
+            int home = getKeyIndex(current);
+            // move the entry back only if the hole lies between its home slot and its current slot
+            if (((index - home) & mask) >= ((index - hole) & mask)) {
+                keys[hole] = current;
+                values[hole] = values[index];
+                hole = index;
+            }
+        }
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int index = getKeyIndex(key);
+                while (keys[index] != FREE_KEY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int getKeyIndex(int key) {
+        // Fibonacci hashing spreads sequential keys across the table
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 2) / (double) LOAD_FACTOR);
+        if (needed > 1 << 30) {
+            throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        }
+        return Math.max(16, Integer.highestOneBit((int) needed - 1) << 1);
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Least frequently used, in O(1) per operation: entries with the same access count share one
+ * intrusive list, and the victim is the least recently used entry of the lowest non-empty count.
+ * Counts saturate at {@link #MAX_FREQUENCY}, so one very hot key cannot grow the list table without bound.
+ */
+public class LfuEvictionPolicy<K, V> implements BoundedCustomHashMap.EvictionPolicy<K, V> {
+
+    static final int MAX_FREQUENCY = 255;
+
+    private final BoundedCustomHashMap.EntryList<K, V>[] lists = newLists(MAX_FREQUENCY + 1);
+    private int minFrequency;
+
+    @Override
+    public void onAccess(BoundedCustomHashMap.CacheEntry<K, V> entry) {
+        if (entry.frequency == MAX_FREQUENCY) {
+            lists[MAX_FREQUENCY].moveToLast(entry);
+            return;
+        }
+        BoundedCustomHashMap.EntryList<K, V> current = lists[entry.frequency];
+        current.unlink(entry);
+        if (current.isEmpty() && minFrequency == entry.frequency) {
+            minFrequency++;
+        }
+        entry.frequency++;
+        listFor(entry.frequency).addLast(entry);
+    }
+
+    @Override
+    public void onInsert(BoundedCustomHashMap.CacheEntry<K, V> entry) {
+        entry.frequency = 1;
+        minFrequency = 1;
+        listFor(1).addLast(entry);
+    }
+
+    @Override
+    public void onRemove(BoundedCustomHashMap.CacheEntry<K, V> entry) {
+        lists[entry.frequency].unlink(entry);
+    }
+
+    @Override
+    public BoundedCustomHashMap.CacheEntry<K, V> victim() {
+        // an explicit remove can empty the lowest list, so skip forward to the next populated count
+        while (minFrequency < MAX_FREQUENCY && (lists[minFrequency] == null || lists[minFrequency].isEmpty())) {
+            minFrequency++;
+        }
+        return lists[minFrequency].head;
+    }
+
+    private BoundedCustomHashMap.EntryList<K, V> listFor(int frequency) {
+        if (lists[frequency] == null) {
+            lists[frequency] = new BoundedCustomHashMap.EntryList<>();
+        }
+        return lists[frequency];
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V> BoundedCustomHashMap.EntryList<K, V>[] newLists(int length) {
+        return new BoundedCustomHashMap.EntryList[length];
+    }
+}
@@ -0,0 +1,199 @@
+import java.util.Arrays;
+
+/**
+ * Open-addressing sibling of {@link CustomHashMap} for long keys.
+ * Keys sit in a flat long[] next to a parallel Object[] of values and collisions are resolved
+ * by linear probing, so there is no Entry object per key and no next pointer to chase.
+ * Key 0 marks a free slot, so the real key 0 is stored outside the table.
+ */
+public class LongObjectHashMap<V> {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final long FREE_KEY = 0L;
+
+    long[] keys;
+    Object[] values;
+    int size = 0;
+    private int mask;
+    private int threshold;
+
+    private boolean hasZeroKey;
+    private V zeroValue;
+
+    public LongObjectHashMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize number of entries the map should hold without resizing
+     */
+    public LongObjectHashMap(int expectedSize) {
+        allocate(IntIntHashMap.tableSizeFor(expectedSize));
+    }
+
+    public static void main(String[] args) {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        map.put(1L, "one");
+        map.put(1L << 40, "big");
+        map.put(0L, "zero");
+
+        System.out.println("Value for key 2^40: " + map.get(1L << 40)); // Expected: big
+        System.out.println("Value for key 0: " + map.get(0L)); // Expected: zero
+        System.out.println("Value for key 5: " + map.get(5L)); // Expected: null
+
+        map.put(1L, "uno");
+        System.out.println("Updated value for key 1: " + map.get(1L)); // Expected: uno
+        System.out.println("Removed: " + map.remove(1L)); // Expected: uno
+        System.out.println("Size: " + map.size()); // Expected: 2
+
+        for (long i = 100; i < 200; i++) {
+            map.put(i, "v" + i);
+        }
+        System.out.println("Value for key 150: " + map.get(150L)); // Expected: v150
+        System.out.println("Table length: " + map.keys.length); // Expected: 256
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == FREE_KEY) {
+            return hasZeroKey ? zeroValue : null;
+        }
+        int index = getKeyIndex(key);
+        while (true) {
+            long current = keys[index];
+            if (current == key) {
+                return (V) values[index];
+            }
+            if (current == FREE_KEY) {
+                return null;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * @return the previous value, or null if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == FREE_KEY) {
+            V previous = zeroValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+
+        int index = getKeyIndex(key);
+        while (true) {
+            long current = keys[index];
+            if (current == FREE_KEY) {
+                keys[index] = key;
+                values[index] = value;
+                if (++size > threshold) {
+                    resize();
+                }
+                return null;
+            }
+            if (current == key) {
+                V previous = (V) values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == FREE_KEY) {
+            if (!hasZeroKey) {
+                return null;
+            }
+            V previous = zeroValue;
+            hasZeroKey = false;
+            zeroValue = null;
+            size--;
+            return previous;
+        }
+
+        int index = getKeyIndex(key);
+        while (true) {
+            long current = keys[index];
+            if (current == FREE_KEY) {
+                return null;
+            }
+            if (current == key) {
+                V previous = (V) values[index];
+                shiftKeys(index);
+                size--;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        Arrays.fill(values, null);
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    private void shiftKeys(int hole) {
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            long current = keys[index];
+            if (current == FREE_KEY) {
+                keys[hole] = FREE_KEY;
+                values[hole] = null; // let the value be collected
+                return;
+            }
+            int home = getKeyIndex(current);
+            // move the entry back only if the hole lies between its home slot and its current slot
+            if (((index - home) & mask) >= ((index - hole) & mask)) {
+                keys[hole] = current;
+                values[hole] = values[index];
+                hole = index;
+            }
+        }
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(oldKeys.length * 2);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int index = getKeyIndex(key);
+                while (keys[index] != FREE_KEY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int getKeyIndex(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * Least recently used: every access moves the entry to the tail, the head is evicted.
+ */
+public class LruEvictionPolicy<K, V> implements BoundedCustomHashMap.EvictionPolicy<K, V> {
+
+    private final BoundedCustomHashMap.EntryList<K, V> accessOrder = new BoundedCustomHashMap.EntryList<>();
+
+    @Override
+    public void onAccess(BoundedCustomHashMap.CacheEntry<K, V> entry) {
+        accessOrder.moveToLast(entry);
+    }
+
+    @Override
+    public void onInsert(BoundedCustomHashMap.CacheEntry<K, V> entry) {
+        accessOrder.addLast(entry);
+    }
+
+    @Override
+    public void onRemove(BoundedCustomHashMap.CacheEntry<K, V> entry) {
+        accessOrder.unlink(entry);
+    }
+
+    @Override
+    public BoundedCustomHashMap.CacheEntry<K, V> victim() {
+        return accessOrder.head;
+    }
+}
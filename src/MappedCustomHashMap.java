@@ -0,0 +1,504 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Off-heap, persistent {@link CustomHashMap} backed by two memory-mapped files.
+ * <p>
+ * {@code <base>.data} is an append-only log of serialized records (key length, value length, key bytes,
+ * value bytes), so keys and values can be fixed- or variable-length. {@code <base>.slots} is an
+ * open-addressing table of 16-byte slots, each holding the record offset and the key hash.
+ * Nothing is loaded on open: the OS pages both files in lazily as slots and records are touched,
+ * so reopening a 20 GB table is as fast as mapping it.
+ * <p>
+ * Crash consistency: a put writes the record, then advances the committed end of the log, then
+ * publishes the record by storing its offset into the slot with one 8-byte write. A process that dies
+ * at any point leaves either the old or the new value visible, and every put that returned is visible
+ * after reopening. Mapped writes survive a process crash through the page cache; call {@link #sync()}
+ * to make them survive a power loss too. Overwritten records are not compacted.
+ * <p>
+ * Like {@link CustomHashMap}, this class is not thread-safe.
+ */
+public class MappedCustomHashMap<K, V> implements Closeable {
+
+    private static final long SLOTS_MAGIC = 0x4D48534C4F545331L; // "MHSLOTS1"
+    private static final long DATA_MAGIC = 0x4D48444154413031L; // "MHDATA01"
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    // header fields of the slots file
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 16;
+    private static final int USED_OFFSET = 24; // live slots plus tombstones
+    private static final int DIRTY_OFFSET = 32; // 1 while open, 0 after a clean close
+
+    // header field of the data file
+    private static final int WRITE_POSITION_OFFSET = 8;
+
+    // slot offset values that are not record offsets (records start after the data header)
+    private static final long EMPTY = 0;
+    private static final long TOMBSTONE = -1;
+
+    private static final int SLOTS_CHUNK_BITS = 26; // 64 MB per mapping
+    private static final int DATA_CHUNK_BITS = 26;
+
+    private final Path slotsPath;
+    private final Path dataPath;
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+
+    private MappedRegion slots;
+    private final MappedRegion data;
+    private long capacity;
+    private long size;
+    private long used;
+    private long writePosition;
+
+    private MappedCustomHashMap(Path base, Codec<K> keyCodec, Codec<V> valueCodec, long expectedSize) throws IOException {
+        this.slotsPath = Path.of(base + ".slots");
+        this.dataPath = Path.of(base + ".data");
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        Files.deleteIfExists(Path.of(slotsPath + ".tmp")); // left behind by a crash during rehash
+
+        boolean exists = Files.exists(slotsPath) && Files.exists(dataPath);
+        if (exists) {
+            slots = new MappedRegion(slotsPath, SLOTS_CHUNK_BITS);
+            data = new MappedRegion(dataPath, DATA_CHUNK_BITS);
+            if (slots.getLong(0) != SLOTS_MAGIC || data.getLong(0) != DATA_MAGIC) {
+                throw new IOException("Not a MappedCustomHashMap: " + base);
+            }
+            capacity = slots.getLong(CAPACITY_OFFSET);
+            size = slots.getLong(SIZE_OFFSET);
+            used = slots.getLong(USED_OFFSET);
+            writePosition = data.getLong(WRITE_POSITION_OFFSET);
+            if (slots.getLong(DIRTY_OFFSET) != 0) {
+                recount(); // the counters may be one put behind after a crash; the slots themselves are exact
+            }
+        } else {
+            capacity = tableSizeFor(expectedSize);
+            slots = createSlots(slotsPath, capacity);
+            data = new MappedRegion(dataPath, DATA_CHUNK_BITS);
+            data.putLong(0, DATA_MAGIC);
+            writePosition = HEADER_SIZE;
+            data.putLong(WRITE_POSITION_OFFSET, writePosition);
+        }
+        slots.putLong(DIRTY_OFFSET, 1);
+    }
+
+    /**
+     * Opens the map stored at {@code <base>.slots} and {@code <base>.data}, creating it if it does not exist.
+     */
+    public static <K, V> MappedCustomHashMap<K, V> open(Path base, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        return open(base, keyCodec, valueCodec, 1024);
+    }
+
+    /**
+     * @param expectedSize initial slot capacity hint, only used when the map is created
+     */
+    public static <K, V> MappedCustomHashMap<K, V> open(Path base, Codec<K> keyCodec, Codec<V> valueCodec,
+                                                        long expectedSize) throws IOException {
+        return new MappedCustomHashMap<>(base, keyCodec, valueCodec, expectedSize);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path base = Files.createTempDirectory("mapped-map").resolve("lookup");
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        long start = System.nanoTime();
+        try (MappedCustomHashMap<String, String> map = open(base, Codec.STRING, Codec.STRING)) {
+            for (int i = 0; i < entries; i++) {
+                map.put("key" + i, "value" + i);
+            }
+            map.put("key1", "updated");
+            System.out.println("Removed 'key2': " + map.remove("key2")); // Expected: value2
+        }
+        System.out.printf("Wrote %d entries in %d ms%n", entries, (System.nanoTime() - start) / 1_000_000);
+
+        start = System.nanoTime();
+        try (MappedCustomHashMap<String, String> map = open(base, Codec.STRING, Codec.STRING)) {
+            System.out.printf("Reopened in %.2f ms%n", (System.nanoTime() - start) / 1e6);
+            System.out.println("Size: " + map.size()); // Expected: entries - 1
+            System.out.println("Value for 'key1': " + map.get("key1")); // Expected: updated
+            System.out.println("Value for 'key2': " + map.get("key2")); // Expected: null
+            System.out.println("Value for 'key" + (entries - 1) + "': " + map.get("key" + (entries - 1)));
+        }
+    }
+
+    public V get(K key) {
+        byte[] keyBytes = keyCodec.encode(key);
+        long slot = findSlot(hashBytes(keyBytes), keyBytes);
+        if (slot < 0) {
+            return null;
+        }
+        return valueCodec.decode(readValue(slots.getLong(slotPosition(slot))));
+    }
+
+    public void put(K key, V value) {
+        if (used + 1 > capacity * LOAD_FACTOR) {
+            // grow if live entries fill the table, otherwise rebuilding at the same size just drops tombstones
+            rehash(size + 1 > capacity * LOAD_FACTOR / 2 ? capacity * 2 : capacity);
+        }
+
+        byte[] keyBytes = keyCodec.encode(key);
+        byte[] valueBytes = valueCodec.encode(value);
+        int hash = hashBytes(keyBytes);
+        long slot = findSlot(hash, keyBytes);
+        long record = append(keyBytes, valueBytes);
+
+        if (slot >= 0) {
+            slots.putLong(slotPosition(slot), record); // publishes the new value
+            return;
+        }
+
+        long insertAt = -slot - 1;
+        long position = slotPosition(insertAt);
+        boolean reusesTombstone = slots.getLong(position) == TOMBSTONE;
+        slots.putInt(position + 8, hash);
+        slots.putLong(position, record); // publishes the new key
+        size++;
+        if (!reusesTombstone) {
+            used++;
+        }
+        writeCounters();
+    }
+
+    public V remove(K key) {
+        byte[] keyBytes = keyCodec.encode(key);
+        long slot = findSlot(hashBytes(keyBytes), keyBytes);
+        if (slot < 0) {
+            return null;
+        }
+        long position = slotPosition(slot);
+        V previous = valueCodec.decode(readValue(slots.getLong(position)));
+        slots.putLong(position, TOMBSTONE);
+        size--;
+        writeCounters();
+        return previous;
+    }
+
+    public int size() {
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Forces all mapped changes to the storage device.
+     */
+    public void sync() {
+        data.force();
+        slots.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeCounters();
+        slots.putLong(DIRTY_OFFSET, 0);
+        sync();
+        data.close();
+        slots.close();
+    }
+
+    /**
+     * @return the slot holding the key, or {@code -(insertion slot) - 1} if the key is absent
+     */
+    private long findSlot(int hash, byte[] keyBytes) {
+        long mask = capacity - 1;
+        long index = hash & mask;
+        long firstTombstone = -1;
+        while (true) {
+            long position = slotPosition(index);
+            long record = slots.getLong(position);
+            if (record == EMPTY) {
+                return -(firstTombstone >= 0 ? firstTombstone : index) - 1;
+            }
+            if (record == TOMBSTONE) {
+                if (firstTombstone < 0) {
+                    firstTombstone = index;
+                }
+            } else if (slots.getInt(position + 8) == hash && keyEquals(record, keyBytes)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private boolean keyEquals(long record, byte[] keyBytes) {
+        if (data.getInt(record) != keyBytes.length) {
+            return false;
+        }
+        byte[] stored = new byte[keyBytes.length];
+        data.read(record + 8, stored);
+        return Arrays.equals(stored, keyBytes);
+    }
+
+    private byte[] readValue(long record) {
+        int keyLength = data.getInt(record);
+        byte[] value = new byte[data.getInt(record + 4)];
+        data.read(record + 8 + keyLength, value);
+        return value;
+    }
+
+    private long append(byte[] keyBytes, byte[] valueBytes) {
+        long record = writePosition;
+        data.putInt(record, keyBytes.length);
+        data.putInt(record + 4, valueBytes.length);
+        data.write(record + 8, keyBytes);
+        data.write(record + 8 + keyBytes.length, valueBytes);
+        // keep records 8-byte aligned so the length fields never straddle two mappings
+        writePosition = (record + 8 + keyBytes.length + valueBytes.length + 7) & ~7L;
+        data.putLong(WRITE_POSITION_OFFSET, writePosition);
+        return record;
+    }
+
+    /**
+     * Builds a new slots file next to the current one and swaps it in with an atomic rename,
+     * so a crash during the rehash leaves the old table intact. If the rehash fails, the old table is
+     * mapped again and the map stays usable.
+     */
+    private void rehash(long newCapacity) {
+        Path tmp = Path.of(slotsPath + ".tmp");
+        MappedRegion fresh = null;
+        boolean slotsClosed = false;
+        try {
+            Files.deleteIfExists(tmp); // left behind by a rehash whose cleanup failed
+            fresh = createSlots(tmp, newCapacity);
+            long mask = newCapacity - 1;
+            for (long i = 0; i < capacity; i++) {
+                long position = slotPosition(i);
+                long record = slots.getLong(position);
+                if (record == EMPTY || record == TOMBSTONE) {
+                    continue;
+                }
+                int hash = slots.getInt(position + 8);
+                long index = hash & mask;
+                while (fresh.getLong(slotPosition(index)) != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                fresh.putInt(slotPosition(index) + 8, hash);
+                fresh.putLong(slotPosition(index), record);
+            }
+            fresh.putLong(SIZE_OFFSET, size);
+            fresh.putLong(USED_OFFSET, size);
+            fresh.putLong(DIRTY_OFFSET, 1);
+            data.force(); // records referenced by the new table must be durable before it is
+            fresh.force();
+            fresh.close();
+            fresh = null;
+
+            // unmapped before the rename, since some platforms cannot replace a mapped file
+            slots.close();
+            slotsClosed = true;
+            Files.move(tmp, slotsPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            capacity = newCapacity;
+            used = size;
+            slots = new MappedRegion(slotsPath, SLOTS_CHUNK_BITS);
+        } catch (IOException e) {
+            try {
+                if (fresh != null) {
+                    fresh.close();
+                }
+                if (slotsClosed) {
+                    // the file at slotsPath is the old table, or the new one if only the remap failed;
+                    // capacity matches whichever it is
+                    slots = new MappedRegion(slotsPath, SLOTS_CHUNK_BITS);
+                }
+                Files.deleteIfExists(tmp);
+            } catch (IOException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void recount() {
+        size = 0;
+        used = 0;
+        for (long i = 0; i < capacity; i++) {
+            long record = slots.getLong(slotPosition(i));
+            if (record != EMPTY) {
+                used++;
+                if (record != TOMBSTONE) {
+                    size++;
+                }
+            }
+        }
+        writeCounters();
+    }
+
+    private void writeCounters() {
+        slots.putLong(SIZE_OFFSET, size);
+        slots.putLong(USED_OFFSET, used);
+    }
+
+    private static MappedRegion createSlots(Path path, long capacity) throws IOException {
+        MappedRegion region = new MappedRegion(path, SLOTS_CHUNK_BITS);
+        region.putLong(0, SLOTS_MAGIC);
+        region.putLong(CAPACITY_OFFSET, capacity);
+        // touch the last slot so the whole table is mapped; the file stays sparse until slots are written
+        region.putLong(slotPosition(capacity - 1), EMPTY);
+        return region;
+    }
+
+    private static long slotPosition(long index) {
+        return HEADER_SIZE + index * SLOT_SIZE;
+    }
+
+    private static long tableSizeFor(long expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 8) / (double) LOAD_FACTOR);
+        return Long.highestOneBit(needed - 1) << 1;
+    }
+
+    /**
+     * Hash of the serialized key, so it stays the same across JVM runs whatever the key's hashCode does.
+     */
+    private static int hashBytes(byte[] bytes) {
+        int h = 1;
+        for (byte b : bytes) {
+            h = 31 * h + b;
+        }
+        // murmur3 finalizer: the low bits pick the slot, so they must depend on every input bit
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Converts keys and values to and from the bytes stored in the data file.
+     */
+    public interface Codec<T> {
+
+        Codec<String> STRING = new Codec<>() {
+            public byte[] encode(String value) {
+                return value.getBytes(StandardCharsets.UTF_8);
+            }
+
+            public String decode(byte[] bytes) {
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+
+        Codec<Integer> INTEGER = new Codec<>() {
+            public byte[] encode(Integer value) {
+                return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+            }
+
+            public Integer decode(byte[] bytes) {
+                return ByteBuffer.wrap(bytes).getInt();
+            }
+        };
+
+        Codec<Long> LONG = new Codec<>() {
+            public byte[] encode(Long value) {
+                return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+            }
+
+            public Long decode(byte[] bytes) {
+                return ByteBuffer.wrap(bytes).getLong();
+            }
+        };
+
+        byte[] encode(T value);
+
+        T decode(byte[] bytes);
+    }
+
+    /**
+     * A file mapped as a list of fixed-size chunks, because one MappedByteBuffer cannot exceed 2 GB.
+     * Chunks are mapped on first access; mapping past the end grows the file.
+     */
+    static final class MappedRegion implements Closeable {
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private final int chunkBits;
+        private final long chunkMask;
+        private final List<MappedByteBuffer> chunks = new ArrayList<>();
+
+        MappedRegion(Path path, int chunkBits) throws IOException {
+            this.file = new RandomAccessFile(path.toFile(), "rw");
+            this.channel = file.getChannel();
+            this.chunkBits = chunkBits;
+            this.chunkMask = (1L << chunkBits) - 1;
+        }
+
+        long getLong(long position) {
+            return chunk(position).getLong(offset(position));
+        }
+
+        void putLong(long position, long value) {
+            chunk(position).putLong(offset(position), value);
+        }
+
+        int getInt(long position) {
+            return chunk(position).getInt(offset(position));
+        }
+
+        void putInt(long position, int value) {
+            chunk(position).putInt(offset(position), value);
+        }
+
+        void read(long position, byte[] target) {
+            int done = 0;
+            while (done < target.length) {
+                long current = position + done;
+                int length = (int) Math.min(target.length - done, (1L << chunkBits) - offset(current));
+                chunk(current).get(offset(current), target, done, length);
+                done += length;
+            }
+        }
+
+        void write(long position, byte[] source) {
+            int done = 0;
+            while (done < source.length) {
+                long current = position + done;
+                int length = (int) Math.min(source.length - done, (1L << chunkBits) - offset(current));
+                chunk(current).put(offset(current), source, done, length);
+                done += length;
+            }
+        }
+
+        void force() {
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // the mappings stay valid until they are garbage collected; Java has no portable unmap
+            chunks.clear();
+            channel.close();
+            file.close();
+        }
+
+        private int offset(long position) {
+            return (int) (position & chunkMask);
+        }
+
+        private MappedByteBuffer chunk(long position) {
+            int index = (int) (position >>> chunkBits);
+            while (chunks.size() <= index) {
+                try {
+                    chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) chunks.size() << chunkBits, 1L << chunkBits));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return chunks.get(index);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Crash-consistency check for {@link MappedCustomHashMap}.
+ * <p>
+ * A child JVM puts entries in a loop and prints an acknowledgement after every put that returned.
+ * The parent kills the child with SIGKILL at an arbitrary point, reopens the map and verifies that every
+ * acknowledged entry is there with its value. Each round continues on top of the previous one, so
+ * entries written before earlier crashes (and the slot rehashes in between) are checked too.
+ * <p>
+ * Usage: {@code java MappedHashMapCrashCheck [rounds]} (default 5). Exits with status 1 on a lost entry.
+ */
+public class MappedHashMapCrashCheck {
+
+    private static final int ACKS_BEFORE_KILL = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("writer")) {
+            runWriter(Path.of(args[1]));
+            return;
+        }
+
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Path base = Files.createTempDirectory("mapped-crash").resolve("map");
+        int acknowledged = 0;
+
+        for (int round = 1; round <= rounds; round++) {
+            Process writer = new ProcessBuilder(
+                    Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"),
+                    MappedHashMapCrashCheck.class.getName(), "writer", base.toString())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+
+            int lastAck = -1;
+            try (BufferedReader acks = new BufferedReader(new InputStreamReader(writer.getInputStream()))) {
+                String line;
+                int seen = 0;
+                while ((line = acks.readLine()) != null && seen < ACKS_BEFORE_KILL) {
+                    lastAck = Integer.parseInt(line);
+                    seen++;
+                }
+                writer.destroyForcibly(); // SIGKILL: no shutdown hooks, no close()
+            }
+            writer.waitFor(10, TimeUnit.SECONDS);
+            acknowledged = Math.max(acknowledged, lastAck + 1);
+
+            try (MappedCustomHashMap<String, Integer> map =
+                         MappedCustomHashMap.open(base, MappedCustomHashMap.Codec.STRING, MappedCustomHashMap.Codec.INTEGER)) {
+                for (int i = 0; i < acknowledged; i++) {
+                    Integer value = map.get("key" + i);
+                    if (value == null || value != i) {
+                        System.out.println("round " + round + ": lost key" + i + " (found " + value + ")");
+                        System.exit(1);
+                    }
+                }
+                System.out.printf("round %d: killed after %d acknowledged puts, reopened with %d entries, all present%n",
+                        round, acknowledged, map.size());
+            }
+        }
+        System.out.println("crash consistency check passed");
+    }
+
+    /**
+     * Continues after the highest key already in the map and acknowledges each completed put on stdout.
+     */
+    private static void runWriter(Path base) throws IOException {
+        MappedCustomHashMap<String, Integer> map =
+                MappedCustomHashMap.open(base, MappedCustomHashMap.Codec.STRING, MappedCustomHashMap.Codec.INTEGER);
+        int next = map.size();
+        while (map.get("key" + next) != null) {
+            next++; // a key past size() can exist if the counters lagged at the last crash
+        }
+        while (true) {
+            map.put("key" + next, next);
+            System.out.println(next);
+            next++;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.SplittableRandom;
+
+/**
+ * Compares heap footprint and put/get throughput of the chained {@link CustomHashMap}
+ * against the open-addressing {@link IntIntHashMap} and {@link LongObjectHashMap}.
+ * <p>
+ * Usage: {@code java -Xmx32g OpenAddressingBenchmark 1000000 10000000 100000000}
+ * (sizes default to 1M; the 100M run needs a large heap for the chained map).
+ */
+public class OpenAddressingBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[]{1_000_000} : new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        System.out.printf("%-20s %12s %14s %14s %12s%n", "map", "entries", "put ops/sec", "get ops/sec", "bytes/entry");
+        for (int size : sizes) {
+            int[] keys = randomKeys(size);
+            for (int round = 0; round < ROUNDS; round++) {
+                boolean report = round == ROUNDS - 1; // earlier rounds warm up the JIT
+                runCustomHashMap(keys, report);
+                runIntIntHashMap(keys, report);
+                runLongObjectHashMap(keys, report);
+            }
+        }
+    }
+
+    private static void runCustomHashMap(int[] keys, boolean report) {
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        CustomHashMap<Integer, Integer> map = new CustomHashMap<>();
+        for (int key : keys) {
+            map.put(key, key);
+        }
+        long putNanos = System.nanoTime() - start;
+        long heapAfter = usedHeap();
+
+        start = System.nanoTime();
+        long checksum = 0;
+        for (int key : keys) {
+            checksum += map.get(key);
+        }
+        long getNanos = System.nanoTime() - start;
+        print("CustomHashMap", keys.length, putNanos, getNanos, heapAfter - heapBefore, map.size(), checksum, report);
+    }
+
+    private static void runIntIntHashMap(int[] keys, boolean report) {
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        IntIntHashMap map = new IntIntHashMap();
+        for (int key : keys) {
+            map.put(key, key);
+        }
+        long putNanos = System.nanoTime() - start;
+        long heapAfter = usedHeap();
+
+        start = System.nanoTime();
+        long checksum = 0;
+        for (int key : keys) {
+            checksum += map.get(key);
+        }
+        long getNanos = System.nanoTime() - start;
+        print("IntIntHashMap", keys.length, putNanos, getNanos, heapAfter - heapBefore, map.size(), checksum, report);
+    }
+
+    private static void runLongObjectHashMap(int[] keys, boolean report) {
+        // measured from before the values are boxed, since the map keeps them alive just as CustomHashMap
+        // keeps its boxed keys and values; the array itself is dropped again before heapAfter
+        long heapBefore = usedHeap();
+        Integer[] boxed = new Integer[keys.length]; // values shared with nothing else, same as CustomHashMap
+        for (int i = 0; i < keys.length; i++) {
+            boxed[i] = keys[i];
+        }
+        long start = System.nanoTime();
+        LongObjectHashMap<Integer> map = new LongObjectHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], boxed[i]);
+        }
+        long putNanos = System.nanoTime() - start;
+        boxed = null;
+        long heapAfter = usedHeap();
+
+        start = System.nanoTime();
+        long checksum = 0;
+        for (int key : keys) {
+            checksum += map.get(key);
+        }
+        long getNanos = System.nanoTime() - start;
+        print("LongObjectHashMap", keys.length, putNanos, getNanos, heapAfter - heapBefore, map.size(), checksum, report);
+    }
+
+    private static void print(String name, int operations, long putNanos, long getNanos, long retainedBytes,
+                              int size, long checksum, boolean report) {
+        if (checksum == 42) {
+            System.out.println(); // keeps the lookups from being optimised away
+        }
+        if (report) {
+            System.out.printf("%-20s %12d %14.0f %14.0f %12.1f%n", name, size,
+                    operations * 1e9 / putNanos, operations * 1e9 / getNanos, (double) retainedBytes / size);
+        }
+    }
+
+    private static int[] randomKeys(int size) {
+        // distinct keys: a random odd multiplier is a bijection on int
+        SplittableRandom random = new SplittableRandom(42);
+        int multiplier = random.nextInt() | 1;
+        int[] keys = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = (i + 1) * multiplier;
+        }
+        return keys;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,82 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Full-table aggregation over {@link CustomHashMap} on 1..N cores, through {@code reduceToLong} and
+ * through {@code entrySet().parallelStream()}, each run inside a fork-join pool of the given parallelism.
+ * Reports the time per pass and the speedup over one core.
+ * <p>
+ * Usage: {@code java -Xmx8g ParallelAggregationBenchmark [entries] [maxCores]}
+ * (default 5000000 entries on every available core; the 50M-entry run needs a large heap).
+ */
+public class ParallelAggregationBenchmark {
+
+    private static final int PASSES = 5;
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int maxCores = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        CustomHashMap<Integer, Integer> map = new CustomHashMap<>();
+        for (int i = 0; i < entries; i++) {
+            map.put(i, i % 1000);
+        }
+        ForkJoinPool single = new ForkJoinPool(1);
+        long expected = map.reduceToLong(single, (key, value) -> value, 0, Long::sum);
+        single.shutdown();
+
+        System.out.printf("%-16s %6s %12s %10s%n", "method", "cores", "ms/pass", "speedup");
+        double reduceBaseline = 0;
+        double streamBaseline = 0;
+        for (int cores : coreCounts(maxCores)) {
+            ForkJoinPool pool = new ForkJoinPool(cores);
+
+            double reduceMillis = timePasses(() -> check(expected,
+                    map.reduceToLong(pool, (key, value) -> value, 0, Long::sum)));
+            double streamMillis = timePasses(() -> check(expected, pool.submit(() -> map.entrySet().parallelStream()
+                    .mapToLong(entry -> entry.getValue())
+                    .sum()).get()));
+            pool.shutdown();
+
+            if (cores == 1) {
+                reduceBaseline = reduceMillis;
+                streamBaseline = streamMillis;
+            }
+            System.out.printf("%-16s %6d %12.1f %10.2f%n", "reduceToLong", cores, reduceMillis, reduceBaseline / reduceMillis);
+            System.out.printf("%-16s %6d %12.1f %10.2f%n", "parallelStream", cores, streamMillis, streamBaseline / streamMillis);
+        }
+    }
+
+    /**
+     * 1, 2, 4, ... below {@code maxCores}, then {@code maxCores} itself, so the last step uses every core.
+     */
+    private static List<Integer> coreCounts(int maxCores) {
+        List<Integer> counts = new ArrayList<>();
+        for (int cores = 1; cores < maxCores; cores *= 2) {
+            counts.add(cores);
+        }
+        counts.add(Math.max(maxCores, 1));
+        return counts;
+    }
+
+    private static double timePasses(Pass pass) throws InterruptedException, ExecutionException {
+        pass.run(); // warm-up
+        long start = System.nanoTime();
+        for (int i = 0; i < PASSES; i++) {
+            pass.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / PASSES;
+    }
+
+    private static void check(long expected, long actual) {
+        if (expected != actual) {
+            throw new IllegalStateException("expected " + expected + " but got " + actual);
+        }
+    }
+
+    private interface Pass {
+        void run() throws InterruptedException, ExecutionException;
+    }
+}
@@ -0,0 +1,56 @@
+import benchmark.LatencyHistogram;
+
+/**
+ * Per-operation latency of {@link CustomHashMap} (stop-the-world resize) against
+ * {@link IncrementalCustomHashMap} (amortized resize) while the map grows from empty.
+ * The tail percentiles and max of the put histogram show the resize spikes.
+ * <p>
+ * Usage: {@code java -Xmx16g ResizeLatencyBenchmark [entries]} (default 5000000; use 50000000 for the p999 case).
+ */
+public class ResizeLatencyBenchmark {
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        String[] keys = new String[entries];
+        for (int i = 0; i < entries; i++) {
+            keys[i] = "key" + i;
+        }
+
+        for (int round = 0; round < 2; round++) {
+            System.out.println(round == 0 ? "warm-up" : "measured");
+
+            LatencyHistogram put = new LatencyHistogram("CustomHashMap put");
+            LatencyHistogram get = new LatencyHistogram("CustomHashMap get");
+            CustomHashMap<String, Integer> stopTheWorld = new CustomHashMap<>();
+            for (int i = 0; i < entries; i++) {
+                long start = System.nanoTime();
+                stopTheWorld.put(keys[i], i);
+                put.recordSince(start);
+            }
+            for (int i = 0; i < entries; i++) {
+                long start = System.nanoTime();
+                stopTheWorld.get(keys[i]);
+                get.recordSince(start);
+            }
+            stopTheWorld = null;
+            System.out.println(put.summary());
+            System.out.println(get.summary());
+
+            LatencyHistogram incrementalPut = new LatencyHistogram("IncrementalCustomHashMap put");
+            LatencyHistogram incrementalGet = new LatencyHistogram("IncrementalCustomHashMap get");
+            IncrementalCustomHashMap<String, Integer> incremental = new IncrementalCustomHashMap<>();
+            for (int i = 0; i < entries; i++) {
+                long start = System.nanoTime();
+                incremental.put(keys[i], i);
+                incrementalPut.recordSince(start);
+            }
+            for (int i = 0; i < entries; i++) {
+                long start = System.nanoTime();
+                incremental.get(keys[i]);
+                incrementalGet.recordSince(start);
+            }
+            System.out.println(incrementalPut.summary());
+            System.out.println(incrementalGet.summary());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writer throughput of {@link SnapshotCustomHashMap} with and without reporting threads that repeatedly
+ * take a snapshot and iterate all of it, compared with a {@code synchronized} {@link CustomHashMap} whose
+ * readers have to iterate while holding the lock.
+ * The writer runs a 50% put / 50% remove mix over twice as many keys as are initially stored.
+ * <p>
+ * Usage: {@code java SnapshotBenchmark [keys] [millisPerRun] [readers]} (defaults 1000000, 2000, 2).
+ */
+public class SnapshotBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int keyCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+        int readers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        Integer[] keys = new Integer[keyCount * 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+
+        System.out.printf("%-28s %8s %16s %16s%n", "map", "readers", "writer ops/sec", "full scans/sec");
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1; // the first round warms up the JIT
+            for (int readerCount : new int[]{0, readers}) {
+                SnapshotCustomHashMap<Integer, Integer> snapshotMap = new SnapshotCustomHashMap<>();
+                for (int i = 0; i < keyCount; i++) {
+                    snapshotMap.put(keys[i], i);
+                }
+                run("SnapshotCustomHashMap", readerCount, millis, report, keys,
+                        new MapOps() {
+                            void put(Integer key, Integer value) {
+                                snapshotMap.put(key, value);
+                            }
+
+                            void remove(Integer key) {
+                                snapshotMap.remove(key);
+                            }
+
+                            long scan() {
+                                long[] sum = new long[1];
+                                snapshotMap.snapshot().forEach((key, value) -> sum[0] += value);
+                                return sum[0];
+                            }
+                        });
+
+                CustomHashMap<Integer, Integer> plain = new CustomHashMap<>();
+                for (int i = 0; i < keyCount; i++) {
+                    plain.put(keys[i], i);
+                }
+                run("synchronized(CustomHashMap)", readerCount, millis, report, keys,
+                        new MapOps() {
+                            void put(Integer key, Integer value) {
+                                synchronized (plain) {
+                                    plain.put(key, value);
+                                }
+                            }
+
+                            void remove(Integer key) {
+                                synchronized (plain) {
+                                    plain.remove(key);
+                                }
+                            }
+
+                            long scan() {
+                                long[] sum = new long[1];
+                                synchronized (plain) {
+                                    plain.forEach((key, value) -> sum[0] += value);
+                                }
+                                return sum[0];
+                            }
+                        });
+            }
+        }
+    }
+
+    private static void run(String name, int readerCount, long millis, boolean report, Integer[] keys, MapOps map)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder scans = new LongAdder();
+        long[] writes = new long[1];
+
+        Thread writer = new Thread(() -> {
+            SplittableRandom random = new SplittableRandom(1);
+            long ops = 0;
+            while (running.get()) {
+                Integer key = keys[random.nextInt(keys.length)];
+                if (random.nextBoolean()) {
+                    map.put(key, key);
+                } else {
+                    map.remove(key);
+                }
+                ops++;
+            }
+            writes[0] = ops;
+        });
+        Thread[] readers = new Thread[readerCount];
+        long[] checksums = new long[readerCount];
+        for (int r = 0; r < readerCount; r++) {
+            int id = r;
+            readers[r] = new Thread(() -> {
+                while (running.get()) {
+                    checksums[id] += map.scan();
+                    scans.increment();
+                }
+            });
+        }
+
+        writer.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        Thread.sleep(millis);
+        running.set(false);
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        if (report) {
+            System.out.printf("%-28s %8d %16.0f %16.2f%n", name, readerCount,
+                    writes[0] * 1000.0 / millis, scans.sum() * 1000.0 / millis);
+        }
+    }
+
+    private abstract static class MapOps {
+        abstract void put(Integer key, Integer value);
+
+        abstract void remove(Integer key);
+
+        abstract long scan();
+    }
+}
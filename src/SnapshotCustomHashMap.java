@@ -0,0 +1,339 @@
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * Version of {@link CustomHashMap} that hands out consistent point-in-time views in O(1), while writers
+ * keep going.
+ * <p>
+ * Chain nodes are immutable: a put or remove copies the nodes in front of the one it changes and shares
+ * the rest of the chain. Buckets are grouped in chunks of 64 behind a chunk directory, and every chunk
+ * and directory records the epoch it was created in. {@link #snapshot()} just starts a new epoch and
+ * keeps a reference to the current directory. The first write to a chunk after that copies the chunk,
+ * and the directory too if it is still shared, so a snapshot never sees later writes. Snapshots that
+ * nobody references any more are collected with the chunks only they use.
+ * <p>
+ * Writers are serialized by the map's monitor. Reads of the live map and of snapshots take no lock.
+ */
+public class SnapshotCustomHashMap<K, V> {
+
+    private static final int CHUNK_BITS = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    // written only under the monitor; volatile so lock-free readers see every completed write
+    private volatile Table<K, V> table = new Table<>(0, CHUNK_SIZE);
+    private int size = 0;
+    private long writeEpoch = 0;
+
+    public static void main(String[] args) throws InterruptedException {
+        SnapshotCustomHashMap<String, Integer> map = new SnapshotCustomHashMap<>();
+        map.put("one", 1);
+        map.put("two", 2);
+
+        Snapshot<String, Integer> before = map.snapshot();
+        map.put("one", 111);
+        map.put("three", 3);
+        map.remove("two");
+
+        System.out.println("Live 'one': " + map.get("one") + ", snapshot 'one': " + before.get("one")); // Expected: 111, 1
+        System.out.println("Live 'two': " + map.get("two") + ", snapshot 'two': " + before.get("two")); // Expected: null, 2
+        System.out.println("Live size: " + map.size() + ", snapshot size: " + before.size()); // Expected: 2, 2
+
+        // a writer inserts keys 0, 1, 2, ... in order, so every consistent view holds exactly 0..size-1
+        SnapshotCustomHashMap<Integer, Integer> counter = new SnapshotCustomHashMap<>();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 200_000; i++) {
+                counter.put(i, i);
+            }
+        });
+        writer.start();
+        int checked = 0;
+        while (writer.isAlive()) {
+            Snapshot<Integer, Integer> snapshot = counter.snapshot();
+            long[] sum = new long[1];
+            snapshot.forEach((key, value) -> sum[0] += key);
+            long n = snapshot.size();
+            if (sum[0] != n * (n - 1) / 2) {
+                throw new IllegalStateException("inconsistent snapshot of " + n + " keys");
+            }
+            checked++;
+        }
+        writer.join();
+        System.out.println("Consistent snapshots taken during writes: " + (checked > 0)); // Expected: true
+    }
+
+    public V get(K key) {
+        int hash = CustomHashMap.hash(key);
+        return table.find(key, hash);
+    }
+
+    public synchronized void put(K key, V value) {
+        int hash = CustomHashMap.hash(key);
+        Table<K, V> t = writableTable();
+        int index = hash & t.mask;
+        Chunk<K, V> chunk = t.writableChunk(index >>> CHUNK_BITS, writeEpoch);
+        Node<K, V> head = chunk.buckets[index & (CHUNK_SIZE - 1)];
+
+        Node<K, V> target = head;
+        while (target != null && !(target.hash == hash && target.key.equals(key))) {
+            target = target.next;
+        }
+        if (target != null) {
+            chunk.buckets[index & (CHUNK_SIZE - 1)] = replace(head, target, new Node<>(hash, key, value, target.next));
+        } else {
+            chunk.buckets[index & (CHUNK_SIZE - 1)] = new Node<>(hash, key, value, head);
+            if (++size > t.capacity() * LOAD_FACTOR) {
+                t = resize(t);
+            }
+        }
+        table = t;
+    }
+
+    public synchronized V remove(K key) {
+        int hash = CustomHashMap.hash(key);
+        Table<K, V> current = table;
+        int index = hash & current.mask;
+        Node<K, V> head = current.chunks[index >>> CHUNK_BITS].buckets[index & (CHUNK_SIZE - 1)];
+        Node<K, V> target = head;
+        while (target != null && !(target.hash == hash && target.key.equals(key))) {
+            target = target.next;
+        }
+        if (target == null) {
+            return null; // nothing to change, so nothing to copy
+        }
+
+        Table<K, V> t = writableTable();
+        t.writableChunk(index >>> CHUNK_BITS, writeEpoch).buckets[index & (CHUNK_SIZE - 1)] = replace(head, target, target.next);
+        size--;
+        table = t;
+        return target.value;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns a view of the map as of this call. Taking it costs O(1); later writes to the map copy
+     * what they change instead of modifying anything the snapshot can reach.
+     */
+    public synchronized Snapshot<K, V> snapshot() {
+        Table<K, V> current = table;
+        if (current.epoch == writeEpoch) {
+            writeEpoch++; // the current directory and its chunks are now shared
+        }
+        return new Snapshot<>(current, size);
+    }
+
+    /**
+     * Returns a chain where {@code target} is replaced by {@code replacement} (the new node followed by
+     * the rest of the chain, or just the rest for a remove). The nodes in front of the target are copied,
+     * in reverse order, which does not matter within a bucket.
+     */
+    private static <K, V> Node<K, V> replace(Node<K, V> head, Node<K, V> target, Node<K, V> replacement) {
+        Node<K, V> newHead = replacement;
+        for (Node<K, V> node = head; node != target; node = node.next) {
+            newHead = new Node<>(node.hash, node.key, node.value, newHead);
+        }
+        return newHead;
+    }
+
+    private Table<K, V> writableTable() {
+        Table<K, V> current = table;
+        return current.epoch == writeEpoch ? current : current.copy(writeEpoch);
+    }
+
+    private Table<K, V> resize(Table<K, V> oldTable) {
+        Table<K, V> newTable = new Table<>(writeEpoch, oldTable.capacity() * 2);
+        for (Chunk<K, V> chunk : oldTable.chunks) {
+            for (Node<K, V> head : chunk.buckets) {
+                for (Node<K, V> node = head; node != null; node = node.next) {
+                    int index = node.hash & newTable.mask;
+                    Node<K, V>[] buckets = newTable.chunks[index >>> CHUNK_BITS].buckets;
+                    int slot = index & (CHUNK_SIZE - 1);
+                    buckets[slot] = new Node<>(node.hash, node.key, node.value, buckets[slot]);
+                }
+            }
+        }
+        return newTable;
+    }
+
+    /**
+     * Immutable chain node. {@link #setValue} is not supported, since nodes may be shared with snapshots.
+     */
+    static final class Node<K, V> implements Map.Entry<K, V> {
+        final int hash;
+        final K key;
+        final V value;
+        final Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException("snapshot entries are read-only");
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    static final class Chunk<K, V> {
+        final long epoch;
+        final Node<K, V>[] buckets;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Chunk(long epoch) {
+            this.epoch = epoch;
+            this.buckets = new Node[CHUNK_SIZE];
+        }
+
+        Chunk(long epoch, Node<K, V>[] buckets) {
+            this.epoch = epoch;
+            this.buckets = buckets;
+        }
+    }
+
+    /**
+     * Chunk directory of one version of the map.
+     */
+    static final class Table<K, V> {
+        final long epoch;
+        final Chunk<K, V>[] chunks;
+        final int mask;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Table(long epoch, int capacity) {
+            this.epoch = epoch;
+            this.chunks = new Chunk[capacity / CHUNK_SIZE];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = new Chunk<>(epoch);
+            }
+            this.mask = capacity - 1;
+        }
+
+        private Table(long epoch, Chunk<K, V>[] chunks) {
+            this.epoch = epoch;
+            this.chunks = chunks;
+            this.mask = chunks.length * CHUNK_SIZE - 1;
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        Table<K, V> copy(long newEpoch) {
+            return new Table<>(newEpoch, chunks.clone());
+        }
+
+        /**
+         * Returns the chunk, first replacing it with a private copy if it belongs to an older epoch.
+         * Only called on a directory of the current write epoch.
+         */
+        Chunk<K, V> writableChunk(int chunkIndex, long writeEpoch) {
+            Chunk<K, V> chunk = chunks[chunkIndex];
+            if (chunk.epoch != writeEpoch) {
+                chunk = new Chunk<>(writeEpoch, chunk.buckets.clone());
+                chunks[chunkIndex] = chunk;
+            }
+            return chunk;
+        }
+
+        V find(Object key, int hash) {
+            int index = hash & mask;
+            for (Node<K, V> node = chunks[index >>> CHUNK_BITS].buckets[index & (CHUNK_SIZE - 1)];
+                 node != null; node = node.next) {
+                if (node.hash == hash && node.key.equals(key)) {
+                    return node.value;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Read-only point-in-time view. Safe to use from any thread, for as long as needed.
+     */
+    public static final class Snapshot<K, V> implements Iterable<Map.Entry<K, V>> {
+        private final Table<K, V> table;
+        private final int size;
+
+        Snapshot(Table<K, V> table, int size) {
+            this.table = table;
+            this.size = size;
+        }
+
+        public V get(K key) {
+            return table.find(key, CustomHashMap.hash(key));
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            for (Chunk<K, V> chunk : table.chunks) {
+                for (Node<K, V> head : chunk.buckets) {
+                    for (Node<K, V> node = head; node != null; node = node.next) {
+                        action.accept(node.key, node.value);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new Iterator<>() {
+                private int bucket = -1;
+                private Node<K, V> next = advance(null);
+
+                private Node<K, V> advance(Node<K, V> node) {
+                    if (node != null && node.next != null) {
+                        return node.next;
+                    }
+                    while (++bucket <= table.mask) {
+                        Node<K, V> head = table.chunks[bucket >>> CHUNK_BITS].buckets[bucket & (CHUNK_SIZE - 1)];
+                        if (head != null) {
+                            return head;
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public Map.Entry<K, V> next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    Node<K, V> current = next;
+                    next = advance(current);
+                    return current;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.SplittableRandom;
+
+/**
+ * String-keyed lookups in {@link SwissTableHashMap} against the chained {@link CustomHashMap}, at several
+ * Swiss-table load factors and hit ratios. The Swiss table is given a fixed slot count and filled to the
+ * load factor; the chained map grows on its own (its load stays between 0.375 and 0.75).
+ * <p>
+ * Usage: {@code java SwissTableBenchmark [slots] [lookups]} (default 1048576 slots, 5000000 lookups).
+ */
+public class SwissTableBenchmark {
+
+    private static final double[] LOAD_FACTORS = {0.5, 0.75, 0.875};
+    private static final double[] HIT_RATIOS = {1.0, 0.5, 0.0};
+
+    public static void main(String[] args) {
+        int slots = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+
+        System.out.printf("%-8s %6s %6s %14s %14s%n", "map", "load", "hits", "lookups/sec", "puts/sec");
+        for (double loadFactor : LOAD_FACTORS) {
+            int entries = (int) (slots * loadFactor);
+            String[] keys = new String[entries];
+            for (int i = 0; i < entries; i++) {
+                keys[i] = "user:" + i;
+            }
+            for (double hitRatio : HIT_RATIOS) {
+                String[] probes = probes(keys, lookups, hitRatio);
+                for (int round = 0; round < 2; round++) {
+                    boolean report = round == 1; // the first round warms up the JIT
+                    runSwiss(slots, keys, probes, loadFactor, hitRatio, report);
+                    runChained(keys, probes, loadFactor, hitRatio, report);
+                }
+            }
+        }
+    }
+
+    private static void runSwiss(int slots, String[] keys, String[] probes, double loadFactor, double hitRatio, boolean report) {
+        SwissTableHashMap<String, Integer> map = new SwissTableHashMap<>(slots);
+        long start = System.nanoTime();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        long putNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int found = 0;
+        for (String probe : probes) {
+            if (map.get(probe) != null) {
+                found++;
+            }
+        }
+        long getNanos = System.nanoTime() - start;
+        print("swiss", loadFactor, hitRatio, probes.length, getNanos, keys.length, putNanos, found, report);
+    }
+
+    private static void runChained(String[] keys, String[] probes, double loadFactor, double hitRatio, boolean report) {
+        CustomHashMap<String, Integer> map = new CustomHashMap<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        long putNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int found = 0;
+        for (String probe : probes) {
+            if (map.get(probe) != null) {
+                found++;
+            }
+        }
+        long getNanos = System.nanoTime() - start;
+        print("chained", loadFactor, hitRatio, probes.length, getNanos, keys.length, putNanos, found, report);
+    }
+
+    private static void print(String name, double loadFactor, double hitRatio, int lookups, long getNanos,
+                              int puts, long putNanos, int found, boolean report) {
+        if (report) {
+            // printing found keeps the JIT from dropping the lookups
+            System.out.printf("%-8s %6.3f %6.2f %14.0f %14.0f   (found %d)%n", name, loadFactor, hitRatio,
+                    lookups * 1e9 / getNanos, puts * 1e9 / putNanos, found);
+        }
+    }
+
+    /**
+     * Copies of stored keys for hits (new String instances, so equals does the full comparison) and
+     * keys that were never inserted for misses, shuffled together.
+     */
+    private static String[] probes(String[] keys, int lookups, double hitRatio) {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] probes = new String[lookups];
+        for (int i = 0; i < lookups; i++) {
+            probes[i] = random.nextDouble() < hitRatio
+                    ? new String(keys[random.nextInt(keys.length)])
+                    : "miss:" + random.nextInt(keys.length);
+        }
+        return probes;
+    }
+}
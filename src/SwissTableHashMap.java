@@ -0,0 +1,214 @@
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Swiss-table backend with the same get/put/remove/size API as {@link CustomHashMap}, for read-heavy
+ * workloads with expensive {@code equals} such as string keys.
+ * <p>
+ * Slots are grouped by eight. Each slot has one control byte: EMPTY, DELETED, or 7 bits of the key's hash.
+ * A group's eight control bytes are stored in one long, so a lookup compares the hash tag against all
+ * eight slots with a few word-wide operations (SWAR) and only calls {@code equals} on slots whose tag
+ * matches, which rejects about 127 out of 128 non-matching keys without touching them. Probing moves
+ * group by group and stops at the first group that has an EMPTY slot.
+ * <p>
+ * Capacity is a power of two and the table holds at most 7/8 of it, counting deleted slots.
+ */
+public class SwissTableHashMap<K, V> {
+
+    private static final int GROUP_WIDTH = 8;
+    private static final long LSBS = 0x0101010101010101L;
+    private static final long MSBS = 0x8080808080808080L;
+    private static final long EMPTY = 0x80; // 0b1000_0000
+    private static final long DELETED = 0xFE; // 0b1111_1110
+    private static final long EMPTY_GROUP = EMPTY * LSBS;
+
+    // ctrl[g] holds the control bytes of slots 8g..8g+7, slot 8g in the lowest byte
+    long[] ctrl;
+    Object[] keys;
+    Object[] values;
+    int size = 0;
+    private int groupMask;
+    // inserts left before the table reaches 7/8 full, counting tombstones as full
+    private int growthLeft;
+
+    public SwissTableHashMap() {
+        this(16);
+    }
+
+    /**
+     * @param initialCapacity number of slots, rounded up to a power of two (at least 16)
+     */
+    public SwissTableHashMap(int initialCapacity) {
+        allocate(Math.max(16, Integer.highestOneBit(Math.max(1, initialCapacity) - 1) << 1));
+    }
+
+    public static void main(String[] args) {
+        SwissTableHashMap<String, Integer> map = new SwissTableHashMap<>();
+        map.put("one", 1);
+        map.put("two", 2);
+        map.put("three", 3);
+
+        System.out.println("Value for key 'two': " + map.get("two")); // Expected: 2
+        System.out.println("Value for key 'five': " + map.get("five")); // Expected: null
+
+        map.put("one", 111);
+        System.out.println("New value for key 'one': " + map.get("one")); // Expected: 111
+        System.out.println("Removed value: " + map.remove("three")); // Expected: 3
+        System.out.println("Current size: " + map.size()); // Expected: 2
+
+        for (int i = 0; i < 20; i++) {
+            map.put("key" + i, i);
+        }
+        System.out.println("Final size after resizing: " + map.size()); // Expected: 22
+        System.out.println("Value for 'key15': " + map.get("key15")); // Expected: 15
+        System.out.println("Internal slot count: " + map.keys.length); // Expected: 32
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int slot = findSlot(key, hash(key));
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    public void put(K key, V value) {
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+
+        if (growthLeft == 0) {
+            // mostly tombstones: rebuild at the same size, otherwise double
+            rehash(size >= keys.length * 7 / 16 ? keys.length * 2 : keys.length);
+        }
+        slot = findInsertSlot(hash);
+        if (controlByte(slot) == EMPTY) {
+            growthLeft--;
+        }
+        setControlByte(slot, h2(hash));
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int slot = findSlot(key, hash(key));
+        if (slot < 0) {
+            return null;
+        }
+        V previous = (V) values[slot];
+        keys[slot] = null;
+        values[slot] = null;
+        size--;
+        // a probe only continues past a group that has no EMPTY slot, so if this group has one,
+        // no lookup depends on the slot and it can become EMPTY instead of a tombstone
+        if (matchEmpty(ctrl[slot / GROUP_WIDTH]) != 0) {
+            setControlByte(slot, EMPTY);
+            growthLeft++;
+        } else {
+            setControlByte(slot, DELETED);
+        }
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int findSlot(Object key, int hash) {
+        long tag = h2(hash);
+        int group = h1(hash) & groupMask;
+        for (int step = 1; ; step++) {
+            long control = ctrl[group];
+            for (long candidates = matchTag(control, tag); candidates != 0; candidates &= candidates - 1) {
+                int slot = group * GROUP_WIDTH + (Long.numberOfTrailingZeros(candidates) >>> 3);
+                Object stored = keys[slot];
+                if (stored != null && (stored == key || stored.equals(key))) {
+                    return slot;
+                }
+            }
+            if (matchEmpty(control) != 0) {
+                return -1;
+            }
+            group = (group + step) & groupMask; // triangular probing visits every group once
+        }
+    }
+
+    private int findInsertSlot(int hash) {
+        int group = h1(hash) & groupMask;
+        for (int step = 1; ; step++) {
+            long free = ctrl[group] & MSBS; // EMPTY and DELETED are the only bytes with the top bit set
+            if (free != 0) {
+                return group * GROUP_WIDTH + (Long.numberOfTrailingZeros(free) >>> 3);
+            }
+            group = (group + step) & groupMask;
+        }
+    }
+
+    /**
+     * Bytes equal to {@code tag} get their top bit set. The borrow of the subtraction can also flag a
+     * byte right above a real match; callers confirm every candidate with equals, so that is harmless.
+     */
+    static long matchTag(long control, long tag) {
+        long x = control ^ (tag * LSBS);
+        return (x - LSBS) & ~x & MSBS;
+    }
+
+    /**
+     * EMPTY is the only control byte with bit 7 set and bit 1 clear.
+     */
+    static long matchEmpty(long control) {
+        return control & ~(control << 6) & MSBS;
+    }
+
+    private long controlByte(int slot) {
+        return (ctrl[slot / GROUP_WIDTH] >>> ((slot % GROUP_WIDTH) * 8)) & 0xFF;
+    }
+
+    private void setControlByte(int slot, long value) {
+        int shift = (slot % GROUP_WIDTH) * 8;
+        int group = slot / GROUP_WIDTH;
+        ctrl[group] = (ctrl[group] & ~(0xFFL << shift)) | (value << shift);
+    }
+
+    private void rehash(int newCapacity) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int hash = hash(oldKeys[i]);
+                int slot = findInsertSlot(hash);
+                setControlByte(slot, h2(hash));
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                growthLeft--;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        ctrl = new long[capacity / GROUP_WIDTH];
+        Arrays.fill(ctrl, EMPTY_GROUP);
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        groupMask = ctrl.length - 1;
+        growthLeft = capacity - capacity / 8; // rehash takes the re-inserted entries off again
+    }
+
+    private static int hash(Object key) {
+        int h = Objects.requireNonNull(key, "key").hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 15);
+    }
+
+    // the high 25 bits choose the first group, the low 7 bits are the tag stored in the control byte
+    private static int h1(int hash) {
+        return hash >>> 7;
+    }
+
+    private static long h2(int hash) {
+        return hash & 0x7F;
+    }
+}
@@ -38,6 +38,10 @@ public class ConcurrentMapExample {
         map.merge(key, 1, (existing, newvalue) -> existing + newvalue);
     }
 
+    public int getCount(String key) {
+        return map.getOrDefault(key, 0);
+    }
+
     public void displayMap() {
         map.forEach((key, count) -> System.out.println(key + ": " + count));
     }
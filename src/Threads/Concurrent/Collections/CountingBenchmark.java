@@ -0,0 +1,133 @@
+package Threads.Concurrent.Collections;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Increments/sec from 1..64 threads for {@link ConcurrentMapExample}'s {@code merge} and the three
+ * {@link CountingService} paths: LongAdder per key, striped counters for known keys, and thread-local
+ * batches. After each run, the counted total is checked against the number of increments.
+ * <ul>
+ *     <li>uniform: keys drawn uniformly from 1000 names</li>
+ *     <li>hot: every increment goes to "apple"</li>
+ * </ul>
+ * Usage: {@code java Threads.Concurrent.Collections.CountingBenchmark [millisPerRun] [maxThreads]} (defaults 1000, 64).
+ */
+public class CountingBenchmark {
+
+    private static final int KEYS = 1000;
+
+    public static void main(String[] args) throws InterruptedException {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        String[] uniform = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            uniform[i] = "key" + i;
+        }
+        uniform[0] = "apple";
+        String[] hot = {"apple"};
+
+        System.out.printf("%-9s %-14s %8s %16s%n", "workload", "counter", "threads", "increments/sec");
+        for (int t = 1; t <= maxThreads; t *= 2) {
+            int threads = t;
+            for (String[] keys : new String[][]{uniform, hot}) {
+                String workload = keys == hot ? "hot" : "uniform";
+
+                ConcurrentMapExample merge = new ConcurrentMapExample();
+                report(workload, "merge", threads, run(threads, millis, keys, (thread, key) -> merge.incrementCount(key),
+                        () -> Arrays.stream(keys).distinct().mapToLong(merge::getCount).sum()));
+
+                CountingService<String> adders = new CountingService<>();
+                report(workload, "LongAdder", threads, run(threads, millis, keys, (thread, key) -> adders.increment(key),
+                        () -> sum(adders)));
+
+                CountingService<String> striped = new CountingService<>(Arrays.asList(keys));
+                report(workload, "striped-known", threads, run(threads, millis, keys, (thread, key) -> striped.increment(key),
+                        () -> sum(striped)));
+
+                CountingService<String> batched = new CountingService<>(Arrays.asList(keys));
+                report(workload, "batched", threads, run(threads, millis, keys, new Counter() {
+                    // one batch per benchmark thread, indexed by thread number
+                    final CountingService<String>.Batch[] batches = newBatches(batched, threads);
+
+                    @Override
+                    public void increment(int thread, String key) {
+                        batches[thread].increment(key);
+                    }
+
+                    @Override
+                    public void finish(int thread) {
+                        batches[thread].close();
+                    }
+                }, () -> sum(batched)));
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static CountingService<String>.Batch[] newBatches(CountingService<String> service, int threads) {
+        CountingService<String>.Batch[] batches = new CountingService.Batch[threads];
+        for (int i = 0; i < threads; i++) {
+            batches[i] = service.newBatch(4096, 100);
+        }
+        return batches;
+    }
+
+    private static long sum(CountingService<String> service) {
+        return service.snapshot().values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private static double run(int threadCount, long millis, String[] keys, Counter counter, Total total)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        long[] increments = new long[threadCount];
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(id);
+                long count = 0;
+                while (running.get()) {
+                    counter.increment(id, keys[keys.length == 1 ? 0 : random.nextInt(keys.length)]);
+                    count++;
+                }
+                counter.finish(id);
+                increments[id] = count;
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(millis);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long expected = Arrays.stream(increments).sum();
+        long counted = total.get();
+        if (counted != expected) {
+            throw new IllegalStateException("counted " + counted + " of " + expected + " increments");
+        }
+        return expected * 1e9 / elapsed;
+    }
+
+    private static void report(String workload, String counter, int threads, double rate) {
+        System.out.printf("%-9s %-14s %8d %16.0f%n", workload, counter, threads, rate);
+    }
+
+    private interface Counter {
+        void increment(int thread, String key);
+
+        default void finish(int thread) {
+        }
+    }
+
+    private interface Total {
+        long get();
+    }
+}
@@ -0,0 +1,219 @@
+package Threads.Concurrent.Collections;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Key counter for many threads, without the allocation and hot-bin CAS spinning of
+ * {@link ConcurrentMapExample#incrementCount}. It counts in three ways:
+ * <ul>
+ *     <li>Any key: one {@link LongAdder} per key. A hot key's increments spread over the adder's cells
+ *     instead of spinning on one map bin, and after the first increment of a key nothing is allocated.</li>
+ *     <li>Known keys, given to the constructor: plain {@code long} counters in an {@link AtomicLongArray},
+ *     with one padded stripe of counters per group of threads, so threads on different stripes never
+ *     write the same cache line. {@link #indexOf} plus {@link #incrementKnown} skips the key lookup.</li>
+ *     <li>{@link Batch}: a per-thread buffer that adds up increments privately and pushes the totals into
+ *     the service every {@code flushEvery} increments or {@code flushIntervalMillis}, whichever comes first.</li>
+ * </ul>
+ * {@link #get} and {@link #snapshot} add up all stripes and cells, so reads cost more than writes. Counts
+ * still buffered in a batch show up after its next flush.
+ */
+public class CountingService<K> {
+
+    // 8 longs = 64 bytes, so neighbouring stripes never share a cache line
+    private static final int PADDING = 8;
+
+    private final ConcurrentHashMap<K, LongAdder> adders = new ConcurrentHashMap<>();
+    private final Map<K, Integer> knownIndex;
+    private final Object[] knownKeys;
+    private final AtomicLongArray stripes;
+    private final int stripeMask;
+    private final int stripeWidth;
+
+    public CountingService() {
+        this(List.of());
+    }
+
+    public CountingService(Collection<? extends K> knownKeys) {
+        Map<K, Integer> index = new HashMap<>();
+        for (K key : knownKeys) {
+            index.putIfAbsent(key, index.size());
+        }
+        this.knownIndex = index;
+        this.knownKeys = new Object[index.size()];
+        index.forEach((key, i) -> this.knownKeys[i] = key);
+
+        int stripeCount = Integer.highestOneBit(Math.min(64, Runtime.getRuntime().availableProcessors() * 2) * 2 - 1);
+        this.stripeMask = stripeCount - 1;
+        // round each stripe up to whole cache lines and leave one line between stripes
+        this.stripeWidth = ((index.size() + PADDING - 1) / PADDING + 1) * PADDING;
+        this.stripes = new AtomicLongArray(index.isEmpty() ? 0 : stripeCount * stripeWidth);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        CountingService<String> counts = new CountingService<>(List.of("apple", "banana"));
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try (CountingService<String>.Batch batch = counts.newBatch(1000, 100)) {
+                    for (int i = 0; i < 100_000; i++) {
+                        counts.increment("apple");
+                        counts.increment("cherry"); // not a known key, counted in a LongAdder
+                        batch.increment("banana");
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.println(counts.snapshot()); // Expected: {apple=400000, banana=400000, cherry=400000}
+    }
+
+    public void increment(K key) {
+        add(key, 1);
+    }
+
+    public void add(K key, long delta) {
+        Integer index = knownIndex.get(key);
+        if (index != null) {
+            addKnown(index, delta);
+            return;
+        }
+        LongAdder adder = adders.get(key);
+        if (adder == null) {
+            adder = adders.computeIfAbsent(key, k -> new LongAdder());
+        }
+        adder.add(delta);
+    }
+
+    /**
+     * Index of a key passed to the constructor, or -1.
+     */
+    public int indexOf(K key) {
+        Integer index = knownIndex.get(key);
+        return index == null ? -1 : index;
+    }
+
+    public void incrementKnown(int knownKeyIndex) {
+        addKnown(knownKeyIndex, 1);
+    }
+
+    public void addKnown(int knownKeyIndex, long delta) {
+        if (knownKeyIndex < 0 || knownKeyIndex >= knownKeys.length) {
+            throw new IndexOutOfBoundsException("not a known key index: " + knownKeyIndex);
+        }
+        stripes.getAndAdd(stripeOfCurrentThread() * stripeWidth + knownKeyIndex, delta);
+    }
+
+    public long get(K key) {
+        Integer index = knownIndex.get(key);
+        if (index != null) {
+            long sum = 0;
+            for (int stripe = 0; stripe <= stripeMask; stripe++) {
+                sum += stripes.get(stripe * stripeWidth + index);
+            }
+            return sum;
+        }
+        LongAdder adder = adders.get(key);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * Current count of every key that has been counted, known keys first.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<K, Long> snapshot() {
+        Map<K, Long> snapshot = new LinkedHashMap<>();
+        for (Object key : knownKeys) {
+            long count = get((K) key);
+            if (count != 0) {
+                snapshot.put((K) key, count);
+            }
+        }
+        adders.forEach((key, adder) -> snapshot.put(key, adder.sum()));
+        return snapshot;
+    }
+
+    /**
+     * Starts a buffer for the calling thread. Use it from that thread only and close it when done, which
+     * flushes what is left.
+     */
+    public Batch newBatch(int flushEvery, long flushIntervalMillis) {
+        return new Batch(flushEvery, flushIntervalMillis);
+    }
+
+    private int stripeOfCurrentThread() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & stripeMask;
+    }
+
+    /**
+     * Per-thread pre-aggregation. Known keys add up in a plain {@code long[]}, other keys in a private
+     * map, and nothing is shared until the flush.
+     */
+    public final class Batch implements AutoCloseable {
+        private final long[] known = new long[knownKeys.length];
+        private final Map<K, long[]> other = new HashMap<>();
+        private final int flushEvery;
+        private final long flushIntervalNanos;
+        private int pending;
+        private long lastFlush = System.nanoTime();
+
+        private Batch(int flushEvery, long flushIntervalMillis) {
+            this.flushEvery = Math.max(1, flushEvery);
+            this.flushIntervalNanos = flushIntervalMillis * 1_000_000L;
+        }
+
+        public void increment(K key) {
+            Integer index = knownIndex.get(key);
+            if (index != null) {
+                known[index]++;
+            } else {
+                other.computeIfAbsent(key, k -> new long[1])[0]++;
+            }
+            afterIncrement();
+        }
+
+        public void incrementKnown(int knownKeyIndex) {
+            known[knownKeyIndex]++;
+            afterIncrement();
+        }
+
+        /**
+         * Pushes the buffered totals into the service.
+         */
+        public void flush() {
+            for (int i = 0; i < known.length; i++) {
+                if (known[i] != 0) {
+                    addKnown(i, known[i]);
+                    known[i] = 0;
+                }
+            }
+            other.forEach((key, count) -> add(key, count[0]));
+            other.clear();
+            pending = 0;
+            lastFlush = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+
+        private void afterIncrement() {
+            // reading the clock on every increment would cost more than the increment, so check it every 64
+            if (++pending >= flushEvery || ((pending & 63) == 0 && System.nanoTime() - lastFlush >= flushIntervalNanos)) {
+                flush();
+            }
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package Threads;
 
-import java.util.ArrayList;
-import java.util.List;
+import Threads.executorService.ExecutionMode;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
+
+/**
+ * Usage: {@code java Threads.MainParking [platform|fixed_pool|virtual]} (default platform).
+ */
 class MainParking {
     public static void main(String[] args) throws InterruptedException {
         ParkingLotWithThreads parkingLot = new ParkingLotWithThreads(3);
-        List<Thread> threds = new ArrayList<>();
+        ExecutorService cars = ExecutionMode.fromArgs(args, ExecutionMode.PLATFORM).newExecutor();
         for (int i = 0; i < 10; i++) {
             String carNumber = "Car " + i;
 
@@ -16,7 +21,7 @@ class MainParking {
                 try {
                     parkingLot.enterParkingLot(carNumber);
                     Thread.sleep(2000);
-                    parkingLot.exitParkingLot(Thread.currentThread().getName());
+                    parkingLot.exitParkingLot(carNumber);
                 } catch (Exception e) {
                     // TODO: handle exception
                     Thread.currentThread().interrupt();
@@ -24,18 +29,11 @@ class MainParking {
 
             };
 
-            Thread t = new Thread(car);
-            t.start();
-            threds.add(t);
+            cars.submit(car);
 
         }
-        threds.forEach(t -> {
-            try {
-                t.join();
-            } catch (Exception e) {
-                // TODO: handle exception
-            }
-        });
+        cars.shutdown();
+        cars.awaitTermination(1, TimeUnit.HOURS);
 
     }
 
@@ -47,24 +45,37 @@ public class ParkingLotWithThreads {
 
 
     static int totalAvailableSpots;
+    // benchmarks turn the per-car messages off
+    private final boolean verbose;
+
+    public ParkingLotWithThreads(int totalSlots) {
+        this(totalSlots, true);
+    }
 
-    ParkingLotWithThreads(int totalSlots) {
+    public ParkingLotWithThreads(int totalSlots, boolean verbose) {
         totalAvailableSpots = totalSlots;
+        this.verbose = verbose;
     }
 
-    synchronized void enterParkingLot(String carNumber) throws InterruptedException {
+    public synchronized void enterParkingLot(String carNumber) throws InterruptedException {
         while (totalAvailableSpots <= 0) {
-            System.out.println(carNumber + " is waiting for a parking spot");
+            if (verbose) {
+                System.out.println(carNumber + " is waiting for a parking spot");
+            }
             wait();
         }
         totalAvailableSpots--;
-        System.out.println(carNumber + " parked successfully");
+        if (verbose) {
+            System.out.println(carNumber + " parked successfully");
+        }
 
 
     }
 
-    synchronized void exitParkingLot(String carNumber) {
-        System.out.println(carNumber + " has left");
+    public synchronized void exitParkingLot(String carNumber) {
+        if (verbose) {
+            System.out.println(carNumber + " has left");
+        }
         totalAvailableSpots++;
         notify();
     }
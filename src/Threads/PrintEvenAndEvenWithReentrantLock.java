@@ -17,10 +17,9 @@ public class PrintEvenAndEvenWithReentrantLock {
 
         Thread t1 = new Thread(() -> {
             for (int i = 2; i <= 100; i += 2) {
-                // Wait for the even turn                lock.lock();
+                lock.lock();
                 try {
-
-                    lock.lock();
+                    // Wait for our turn; await() releases the lock while waiting
                     while (!isEvenTurn) {
                         eventCondition.await();
                     }
@@ -28,10 +27,13 @@ public class PrintEvenAndEvenWithReentrantLock {
                     Thread.sleep(random.nextInt(10));
                     System.out.println("Even Thread: " + i);
                     isEvenTurn = false;
+                    oddCondition.signal();
                 } catch (InterruptedException e) {
                     System.out.println("Thread interrupted: " + e.getMessage());
+                    Thread.currentThread().interrupt();
+                    return;
                 } finally {
-                    oddCondition.signalAll();
+                    lock.unlock();
                 }
             }
         });
@@ -39,10 +41,9 @@ public class PrintEvenAndEvenWithReentrantLock {
 
         Thread t2 = new Thread(() -> {
             for (int i = 1; i <= 100; i += 2) {
-                // Wait for the even turn                lock.lock();
+                lock.lock();
                 try {
-
-                    lock.lock();
+                    // Wait for our turn; await() releases the lock while waiting
                     while (isEvenTurn) {
                         oddCondition.await();
                     }
@@ -50,10 +51,13 @@ public class PrintEvenAndEvenWithReentrantLock {
                     Thread.sleep(random.nextInt(10));
                     System.out.println("odd Thread: " + i);
                     isEvenTurn = true;
+                    eventCondition.signal();
                 } catch (InterruptedException e) {
                     System.out.println("Thread interrupted: " + e.getMessage());
+                    Thread.currentThread().interrupt();
+                    return;
                 } finally {
-                    eventCondition.signalAll();
+                    lock.unlock();
                 }
             }
         });
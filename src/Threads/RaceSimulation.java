@@ -2,36 +2,52 @@ package Threads;
 
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * One thread per racer, each sleeping as long as the step it just ran. The scheduler decides the order,
+ * so the same race can end differently every time. {@link Threads.race.RaceEngine} runs the same race
+ * in virtual time.
+ */
 public class RaceSimulation {
 
     public static final int race_trace_distance = 100;
-    volatile static boolean winnerFound = false;
 
     public static void main(String[] args) throws InterruptedException {
+        race(5, 2000, true);
+    }
+
+    /**
+     * Runs a race and returns the winner's thread name, once every racer has stopped.
+     *
+     * @param startDelayMillis time between starting the racer threads and the start signal
+     * @param verbose          print the start, every step and the winner
+     */
+    public static String race(int racers, long startDelayMillis, boolean verbose) throws InterruptedException {
 
         CountDownLatch latch = new CountDownLatch(1);
         Random random = new Random();
-        Object lock = new Object();
+        AtomicReference<String> winner = new AtomicReference<>();
         Runnable racer = () -> {
             int distanceCovered = 0;
             try {
                 latch.await();
-                System.out.println("thread" + Thread.currentThread().getName() + "started race");
-                while (distanceCovered < race_trace_distance && (!winnerFound)) {
+                if (verbose) {
+                    System.out.println("thread" + Thread.currentThread().getName() + "started race");
+                }
+                while (distanceCovered < race_trace_distance && winner.get() == null) {
 
                     int currentDistance = random.nextInt(10);
                     distanceCovered = distanceCovered + currentDistance;
-                    System.out.println(Thread.currentThread().getName() + ":" + distanceCovered);
+                    if (verbose) {
+                        System.out.println(Thread.currentThread().getName() + ":" + distanceCovered);
+                    }
                     Thread.sleep(currentDistance);
 
                 }
                 if (distanceCovered >= race_trace_distance) {
-                    synchronized (lock) {
-                        if (!winnerFound) {
-                            System.out.println(Thread.currentThread().getName() + " won the race");
-                            winnerFound = true;
-                        }
+                    if (winner.compareAndSet(null, Thread.currentThread().getName()) && verbose) {
+                        System.out.println(Thread.currentThread().getName() + " won the race");
                     }
                 }
             } catch (InterruptedException e) {
@@ -40,13 +56,17 @@ public class RaceSimulation {
             }
         };
 
-        for (int i = 0; i < 5; i++) {
-            Thread t = new Thread(racer, "racer-" + (i + 1));
-            t.start();
+        Thread[] threads = new Thread[racers];
+        for (int i = 0; i < racers; i++) {
+            threads[i] = new Thread(racer, "racer-" + (i + 1));
+            threads[i].start();
         }
-        Thread.sleep(2000);
+        Thread.sleep(startDelayMillis);
         latch.countDown();
 
-
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return winner.get();
     }
 }
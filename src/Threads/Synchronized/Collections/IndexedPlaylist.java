@@ -0,0 +1,380 @@
+package Threads.Synchronized.Collections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Playlist for many concurrent readers and occasional writers, replacing the locked list scans of
+ * {@link PlaylistManager}. Each song id appears at most once.
+ * <p>
+ * The order lives in a persistent treap: every song has a {@code long} position key, songs are ordered
+ * by key, and every node knows the size of its subtree, so the n-th song and the position of a key are
+ * found in O(log n). Writers copy the O(log n) nodes on the path they change and publish the new root
+ * through a volatile field. Readers never lock: a {@link Snapshot} is just the root they read, and it
+ * never changes afterwards.
+ * <p>
+ * A map from song id to position key gives O(1) {@link #contains} and, together with the tree,
+ * O(log n) {@link #indexOf} and {@link #remove}. Keys lie in [0, 2^62). A new key is picked in the gap
+ * between the neighbours' keys (appends step {@value #GAP} past the last one). When a gap runs out, only
+ * the songs around it get new keys, as in the list labeling of Bender et al.: the smallest aligned key
+ * range around the neighbour of size 2^i holding at most 1.5^i songs is spread out evenly. That
+ * relabels O(log n) songs per insert, amortized, even when every insert goes to the same position.
+ * <p>
+ * Writes are serialized on this object.
+ */
+public class IndexedPlaylist {
+
+    static final long GAP = 1L << 32;
+    private static final long KEY_LIMIT = 1L << 62;
+    private static final double DENSITY = 1.5;
+    private static final long NO_ROOM = -1;
+
+    private final ConcurrentHashMap<String, Long> keys = new ConcurrentHashMap<>();
+    private final SplittableRandom priorities = new SplittableRandom();
+    private volatile Node root;
+
+    public static void main(String[] args) {
+        IndexedPlaylist playlist = new IndexedPlaylist();
+        for (int i = 1; i <= 5; i++) {
+            playlist.add("song" + i);
+        }
+        Snapshot before = playlist.snapshot();
+
+        playlist.insert(0, "intro");
+        playlist.remove("song3");
+        System.out.println("Playlist: " + playlist.snapshot().toList()); // Expected: [intro, song1, song2, song4, song5]
+        System.out.println("Position of song4: " + playlist.indexOf("song4")); // Expected: 3
+        System.out.println("Snapshot taken before: " + before.toList()); // Expected: [song1, song2, song3, song4, song5]
+    }
+
+    /**
+     * Appends a song. Returns false if it is already in the playlist.
+     */
+    public synchronized boolean add(String song) {
+        return insert(size(), song);
+    }
+
+    /**
+     * Inserts a song so that it ends up at {@code index}. Returns false if it is already in the playlist.
+     */
+    public synchronized boolean insert(int index, String song) {
+        Node current = root;
+        int size = size(current);
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        if (keys.containsKey(song)) {
+            return false;
+        }
+        long key = keyBetween(current, index);
+        if (key == NO_ROOM) {
+            root = relabel(current, index, song);
+            return true;
+        }
+        Node[] parts = split(current, key);
+        root = merge(merge(parts[0], new Node(key, song, priorities.nextInt(), null, null)), parts[1]);
+        keys.put(song, key);
+        return true;
+    }
+
+    /**
+     * Removes a song. Returns false if it was not in the playlist.
+     */
+    public synchronized boolean remove(String song) {
+        Long key = keys.remove(song);
+        if (key == null) {
+            return false;
+        }
+        root = delete(root, key);
+        return true;
+    }
+
+    public boolean contains(String song) {
+        return keys.containsKey(song);
+    }
+
+    /**
+     * Position of a song, or -1.
+     */
+    public int indexOf(String song) {
+        Long key = keys.get(song);
+        if (key == null) {
+            return -1;
+        }
+        int index = rank(root, key, song);
+        if (index >= 0) {
+            return index;
+        }
+        // the song was added or relabeled between the two reads; ask again without racing
+        synchronized (this) {
+            key = keys.get(song);
+            return key == null ? -1 : rank(root, key, song);
+        }
+    }
+
+    public String get(int index) {
+        return snapshot().get(index);
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * The playlist as it is now. Later changes do not show in it.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(root);
+    }
+
+    /**
+     * A free key between the songs at {@code index - 1} and {@code index}, or {@link #NO_ROOM}.
+     */
+    private static long keyBetween(Node root, int index) {
+        int size = size(root);
+        if (size == 0) {
+            return KEY_LIMIT / 2;
+        }
+        long before = index == 0 ? -1 : nodeAt(root, index - 1).key;
+        long after = index == size ? KEY_LIMIT : nodeAt(root, index).key;
+        if (index == size && after - before > GAP) {
+            return before + GAP;
+        }
+        if (index == 0 && after - before > GAP) {
+            return after - GAP;
+        }
+        long middle = before + (after - before) / 2;
+        return middle > before ? middle : NO_ROOM;
+    }
+
+    /**
+     * Inserts {@code song} at {@code index} where its neighbours' keys are adjacent, by giving the songs
+     * in the smallest aligned key range around a neighbour that is not too dense (2^i keys holding at most
+     * 1.5^i songs, counting the new one) keys spread evenly over that range. Returns the new root.
+     */
+    private Node relabel(Node current, int index, String song) {
+        long neighbour = index == 0 ? nodeAt(current, 0).key : nodeAt(current, index - 1).key;
+        int level = 1;
+        long from;
+        long to;
+        int count;
+        while (true) {
+            from = neighbour >>> level << level;
+            to = from + (1L << level);
+            count = countBelow(current, to) - countBelow(current, from) + 1;
+            if (count <= Math.pow(DENSITY, level) || to == KEY_LIMIT) {
+                break;
+            }
+            level++;
+        }
+
+        Node[] low = split(current, from);
+        Node[] high = split(low[1], to);
+        List<String> range = new Snapshot(high[0]).toList();
+        range.add(index - size(low[0]), song);
+        String[] songs = range.toArray(new String[0]);
+
+        long spacing = (to - from) / count;
+        long[] newKeys = new long[count];
+        for (int i = 0; i < count; i++) {
+            newKeys[i] = from + spacing / 2 + i * spacing;
+            keys.put(songs[i], newKeys[i]);
+        }
+        int[] ranks = new int[count];
+        for (int i = 0; i < count; i++) {
+            ranks[i] = priorities.nextInt();
+        }
+        Arrays.sort(ranks);
+        return merge(merge(low[0], build(songs, newKeys, ranks, new int[]{count}, 0, count)), high[1]);
+    }
+
+    /**
+     * Balanced tree over {@code songs[from, to)}. Priorities are handed out in pre-order from the top
+     * of the sorted {@code ranks}, so every node outranks its subtree.
+     */
+    private static Node build(String[] songs, long[] keys, int[] ranks, int[] next, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        int priority = ranks[--next[0]];
+        Node left = build(songs, keys, ranks, next, from, middle);
+        Node right = build(songs, keys, ranks, next, middle + 1, to);
+        return new Node(keys[middle], songs[middle], priority, left, right);
+    }
+
+    /**
+     * Number of songs with a key below {@code key}.
+     */
+    private static int countBelow(Node node, long key) {
+        int count = 0;
+        while (node != null) {
+            if (node.key < key) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Splits into the nodes with keys below {@code key} and the rest, copying only the nodes on the path.
+     */
+    private static Node[] split(Node node, long key) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (node.key < key) {
+            Node[] right = split(node.right, key);
+            right[0] = node.with(node.left, right[0]);
+            return right;
+        }
+        Node[] left = split(node.left, key);
+        left[1] = node.with(left[1], node.right);
+        return left;
+    }
+
+    /**
+     * Joins two trees where every key of {@code left} is below every key of {@code right}.
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            return left.with(left.left, merge(left.right, right));
+        }
+        return right.with(merge(left, right.left), right.right);
+    }
+
+    private static Node delete(Node node, long key) {
+        if (node == null) {
+            return null;
+        }
+        if (key < node.key) {
+            return node.with(delete(node.left, key), node.right);
+        }
+        if (key > node.key) {
+            return node.with(node.left, delete(node.right, key));
+        }
+        return merge(node.left, node.right);
+    }
+
+    private static Node nodeAt(Node node, int index) {
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Position of the node with this key and song, or -1 if this tree does not have it.
+     */
+    private static int rank(Node node, long key, String song) {
+        int before = 0;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                before += size(node.left) + 1;
+                node = node.right;
+            } else {
+                return node.song.equals(song) ? before + size(node.left) : -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node {
+        final long key;
+        final String song;
+        final int priority;
+        final Node left;
+        final Node right;
+        final int size;
+
+        Node(long key, String song, int priority, Node left, Node right) {
+            this.key = key;
+            this.song = song;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + 1 + size(right);
+        }
+
+        Node with(Node newLeft, Node newRight) {
+            return new Node(key, song, priority, newLeft, newRight);
+        }
+    }
+
+    /**
+     * Immutable view of the playlist at one moment.
+     */
+    public static final class Snapshot {
+        private final Node root;
+
+        Snapshot(Node root) {
+            this.root = root;
+        }
+
+        public int size() {
+            return IndexedPlaylist.size(root);
+        }
+
+        public String get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("index " + index + ", size " + size());
+            }
+            return nodeAt(root, index).song;
+        }
+
+        /**
+         * Visits the songs in order, with an explicit stack instead of recursion.
+         */
+        public void forEach(Consumer<String> action) {
+            Node[] stack = new Node[64];
+            int depth = 0;
+            Node node = root;
+            while (node != null || depth > 0) {
+                while (node != null) {
+                    if (depth == stack.length) {
+                        Node[] grown = new Node[depth * 2];
+                        System.arraycopy(stack, 0, grown, 0, depth);
+                        stack = grown;
+                    }
+                    stack[depth++] = node;
+                    node = node.left;
+                }
+                node = stack[--depth];
+                action.accept(node.song);
+                node = node.right;
+            }
+        }
+
+        public List<String> toList() {
+            List<String> songs = new ArrayList<>(size());
+            forEach(songs::add);
+            return songs;
+        }
+    }
+}
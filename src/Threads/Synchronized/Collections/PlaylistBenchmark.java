@@ -0,0 +1,176 @@
+package Threads.Synchronized.Collections;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link IndexedPlaylist} against {@link PlaylistManager} on a playlist of {@code songs} songs, with
+ * {@code threads} threads running each read/write mix for {@code millis}.
+ * <p>
+ * A read is, at random, the position of a random song or the song at a random position. A write removes
+ * a random song and puts it back, so the size stays the same: appended, inserted at a random position,
+ * or inserted at position 1 ("play next"). Both classes get the same calls.
+ * <p>
+ * Usage: {@code java Threads.Synchronized.Collections.PlaylistBenchmark [songs] [millis] [threads]}
+ * (defaults 100000, 2000, 4)
+ */
+public class PlaylistBenchmark {
+
+    private static final int[] READ_PERCENTS = {95, 50, 50, 50};
+    private static final Write[] WRITES = {Write.APPEND, Write.APPEND, Write.RANDOM_POSITION, Write.PLAY_NEXT};
+
+    private enum Write {
+        APPEND, RANDOM_POSITION, PLAY_NEXT
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int songs = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        System.out.printf("%d songs, %d threads%n", songs, threads);
+        System.out.printf("%-16s %8s %-16s %14s%n", "playlist", "reads", "writes", "ops/sec");
+        for (int mix = 0; mix < READ_PERCENTS.length; mix++) {
+            int readPercent = READ_PERCENTS[mix];
+            Write write = WRITES[mix];
+            PlaylistManager manager = new PlaylistManager(false);
+            IndexedPlaylist indexed = new IndexedPlaylist();
+            for (int i = 0; i < songs; i++) {
+                manager.addSong("song" + i);
+                indexed.add("song" + i);
+            }
+            System.out.printf("%-16s %7d%% %-16s %14.0f%n", "PlaylistManager", readPercent, write,
+                    run(new ManagerTarget(manager), songs, readPercent, write, threads, millis));
+            System.out.printf("%-16s %7d%% %-16s %14.0f%n", "IndexedPlaylist", readPercent, write,
+                    run(new IndexedTarget(indexed), songs, readPercent, write, threads, millis));
+            if (manager.getPlaylist().size() != songs || indexed.size() != songs) {
+                throw new IllegalStateException("a song was lost");
+            }
+        }
+    }
+
+    private static double run(Target target, int songs, int readPercent, Write write, int threads, long millis)
+            throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder operations = new LongAdder();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long ops = 0;
+                long sink = 0;
+                while (!stop.get()) {
+                    int song = random.nextInt(songs);
+                    if (random.nextInt(100) < readPercent) {
+                        sink += random.nextBoolean() ? target.indexOf("song" + song) : target.get(random.nextInt(songs / 2)).length();
+                    } else if (target.remove("song" + song)) {
+                        if (write == Write.APPEND) {
+                            target.add("song" + song);
+                        } else {
+                            target.insert(write == Write.PLAY_NEXT ? 1 : random.nextInt(songs / 2), "song" + song);
+                        }
+                    }
+                    ops++;
+                }
+                operations.add(ops + (sink == 42 ? 1 : 0));
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        Thread.sleep(millis);
+        stop.set(true);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return operations.sum() * 1e9 / (System.nanoTime() - start);
+    }
+
+    private interface Target {
+        int indexOf(String song);
+
+        // positions below half the size always exist, even while another thread removes and re-adds a song
+        String get(int index);
+
+        boolean remove(String song);
+
+        void add(String song);
+
+        // same bound as get: positions below half the size always exist
+        void insert(int index, String song);
+    }
+
+    private static final class ManagerTarget implements Target {
+        private final PlaylistManager manager;
+
+        ManagerTarget(PlaylistManager manager) {
+            this.manager = manager;
+        }
+
+        @Override
+        public int indexOf(String song) {
+            return manager.indexOf(song);
+        }
+
+        @Override
+        public String get(int index) {
+            return manager.getSong(index);
+        }
+
+        @Override
+        public boolean remove(String song) {
+            // PlaylistManager.removeSong does not say whether it removed anything, so the check and the
+            // removal are one step here; otherwise two threads could both see the song and both re-add it
+            synchronized (this) {
+                int before = manager.indexOf(song);
+                manager.removeSong(song);
+                return before >= 0;
+            }
+        }
+
+        @Override
+        public void add(String song) {
+            manager.addSong(song);
+        }
+
+        @Override
+        public void insert(int index, String song) {
+            manager.insertSong(index, song);
+        }
+    }
+
+    private static final class IndexedTarget implements Target {
+        private final IndexedPlaylist playlist;
+
+        IndexedTarget(IndexedPlaylist playlist) {
+            this.playlist = playlist;
+        }
+
+        @Override
+        public int indexOf(String song) {
+            return playlist.indexOf(song);
+        }
+
+        @Override
+        public String get(int index) {
+            return playlist.get(index);
+        }
+
+        @Override
+        public boolean remove(String song) {
+            return playlist.remove(song);
+        }
+
+        @Override
+        public void add(String song) {
+            playlist.add(song);
+        }
+
+        @Override
+        public void insert(int index, String song) {
+            playlist.insert(index, song);
+        }
+    }
+}
@@ -42,18 +42,44 @@ class MainSynchronizedCollections {
 
 public class PlaylistManager {
     private final List<String> playlist = Collections.synchronizedList(new ArrayList<>());
+    private final boolean verbose;
+
+    public PlaylistManager() {
+        this(true);
+    }
+
+    /**
+     * @param verbose print every change; benchmarks turn it off
+     */
+    public PlaylistManager(boolean verbose) {
+        this.verbose = verbose;
+    }
 
     // TODO: Implement a thread-safe method to add a song to the playlist.
-    void addSong(String song) {
+    public void addSong(String song) {
         synchronized (playlist) {
             playlist.add(song);
-            System.out.println("added song" + song);
+            if (verbose) {
+                System.out.println("added song" + song);
+            }
         }
     }
 
-    void removeSong(String song) {
+    public void insertSong(int index, String song) {
+        synchronized (playlist) {
+            playlist.add(index, song);
+            if (verbose) {
+                System.out.println("inserted song" + song + " at " + index);
+            }
+        }
+    }
+
+    public void removeSong(String song) {
         synchronized (playlist) {
             boolean status = playlist.remove(song);
+            if (!verbose) {
+                return;
+            }
             if (status) {
                 System.out.println("removed song" + song);
 
@@ -65,8 +91,22 @@ public class PlaylistManager {
     }
     // TODO: Implement a thread-safe method to remove a song after it is played.
 
-    // Method to get the current playlist
+    public int indexOf(String song) {
+        synchronized (playlist) {
+            return playlist.indexOf(song);
+        }
+    }
+
+    public String getSong(int index) {
+        synchronized (playlist) {
+            return playlist.get(index);
+        }
+    }
+
+    // Method to get the current playlist; a copy, so callers cannot change it or iterate it unlocked
     public List<String> getPlaylist() {
-        return playlist;
+        synchronized (playlist) {
+            return new ArrayList<>(playlist);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,142 @@
+package Threads.booking;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A burst of booking attempts against a {@link SeatInventory}, all released at once from many threads.
+ * <p>
+ * Each attempt picks a section (half of the demand goes to the first tenth of the sections), holds 1-4 seats,
+ * then confirms 90% of its holds and abandons the rest, which expire. After the burst, the benchmark
+ * checks that no seat was booked twice, that bookings never exceeded capacity, and that every seat is
+ * either booked or back on sale.
+ * For reference, the same attempts also run against one counter guarded by a monitor, the way
+ * {@link Threads.NoRaceCondition} books seats.
+ * <p>
+ * Usage: {@code java Threads.booking.BookingBurstBenchmark [attempts] [threads] [sections] [seatsPerSection] [holdMillis]}
+ * (defaults 1000000, 64, 20, 5000, 20).
+ */
+public class BookingBurstBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int attempts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int sections = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int seatsPerSection = args.length > 3 ? Integer.parseInt(args[3]) : 5000;
+        long holdMillis = args.length > 4 ? Long.parseLong(args[4]) : 20;
+
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1; // the first round warms up the JIT
+            runInventory(attempts, threads, sections, seatsPerSection, holdMillis, report);
+            runMonitor(attempts, threads, sections * seatsPerSection, report);
+        }
+    }
+
+    private static void runInventory(int attempts, int threadCount, int sections, int seatsPerSection,
+                                     long holdMillis, boolean report) throws InterruptedException {
+        SeatInventory inventory = new SeatInventory(sections, seatsPerSection, holdMillis);
+        AtomicLongArray bookedSeats = new AtomicLongArray((sections * seatsPerSection + 63) >>> 6);
+        AtomicInteger doubleBooked = new AtomicInteger();
+        LongAdder confirmedHolds = new LongAdder();
+        LongAdder rejected = new LongAdder();
+
+        long elapsed = burst(attempts, threadCount, (random) -> {
+            int section = random.nextBoolean()
+                    ? random.nextInt(Math.max(1, sections / 10))
+                    : random.nextInt(sections);
+            SeatInventory.Hold hold = inventory.hold(section, 1 + random.nextInt(4));
+            if (hold == null) {
+                rejected.increment();
+                return;
+            }
+            if (random.nextInt(10) == 0 || !inventory.confirm(hold)) {
+                return; // abandoned, or confirmed too late
+            }
+            confirmedHolds.increment();
+            for (int seat : hold.getSeats()) {
+                int id = hold.getSection() * seatsPerSection + seat;
+                long bit = 1L << id;
+                if ((bookedSeats.getAndAccumulate(id >>> 6, bit, (a, b) -> a | b) & bit) != 0) {
+                    doubleBooked.incrementAndGet();
+                }
+            }
+        });
+
+        Thread.sleep(holdMillis + 1);
+        inventory.expireDue();
+        long bookedCount = 0;
+        for (int i = 0; i < bookedSeats.length(); i++) {
+            bookedCount += Long.bitCount(bookedSeats.get(i));
+        }
+        if (doubleBooked.get() > 0 || bookedCount != inventory.booked() || bookedCount > inventory.capacity()
+                || bookedCount + inventory.available() != inventory.capacity()) {
+            throw new IllegalStateException("oversold: " + doubleBooked.get() + " seats booked twice, "
+                    + bookedCount + " booked, " + inventory.available() + " on sale, capacity " + inventory.capacity());
+        }
+        if (report) {
+            System.out.printf("SeatInventory: %,d attempts in %.0f ms = %,.0f attempts/sec, %,.0f bookings/sec;"
+                            + " %,d seats booked of %,d, %,d holds confirmed, %,d rejected, oversell check passed%n",
+                    attempts, elapsed / 1e6, attempts * 1e9 / elapsed, confirmedHolds.sum() * 1e9 / elapsed,
+                    bookedCount, inventory.capacity(), confirmedHolds.sum(), rejected.sum());
+        }
+    }
+
+    private static void runMonitor(int attempts, int threadCount, int capacity, boolean report) throws InterruptedException {
+        Object lock = new Object();
+        int[] seatsLeft = {capacity};
+        LongAdder confirmed = new LongAdder();
+
+        long elapsed = burst(attempts, threadCount, (random) -> {
+            int count = 1 + random.nextInt(4);
+            synchronized (lock) {
+                if (seatsLeft[0] < count) {
+                    return;
+                }
+                seatsLeft[0] -= count;
+            }
+            confirmed.increment();
+        });
+        if (report) {
+            System.out.printf("synchronized counter: %,.0f attempts/sec, %,.0f bookings/sec (no holds, no seat numbers)%n",
+                    attempts * 1e9 / elapsed, confirmed.sum() * 1e9 / elapsed);
+        }
+    }
+
+    /**
+     * Splits the attempts over the threads, lets them all go at once and returns the nanoseconds until the last one ends.
+     */
+    private static long burst(int attempts, int threadCount, Attempt attempt) throws InterruptedException {
+        CountDownLatch go = new CountDownLatch(1);
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            int share = attempts / threadCount + (t < attempts % threadCount ? 1 : 0);
+            long seed = t;
+            threads[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < share; i++) {
+                    attempt.run(random);
+                }
+            });
+            threads[t].start();
+        }
+        long start = System.nanoTime();
+        go.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private interface Attempt {
+        void run(SplittableRandom random);
+    }
+}
@@ -0,0 +1,262 @@
+package Threads.booking;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Seat inventory for one event, split into sections, where booking threads run in parallel instead of
+ * one after another as in {@link Threads.NoRaceCondition}.
+ * <p>
+ * Booking has two steps. {@link #hold} takes seats for a limited time, and {@link #confirm} turns the
+ * hold into a booking. A hold that is neither confirmed nor {@link #release released} in time expires
+ * and its seats go back on sale.
+ * <p>
+ * Each section has a counter of seats on sale and a bitmap of taken seats. A hold first reserves its
+ * seats from the counter with a CAS, which cannot go below zero, so a section is never oversold. It then
+ * claims that many clear bits, starting at a random word. A hold's state (HELD, then CONFIRMED, RELEASED or
+ * EXPIRED) changes only by CAS, so a late confirm and the expiry of the same hold cannot both win.
+ * <p>
+ * All holds last the same time, so each section's pending holds sit in a FIFO queue ordered by deadline.
+ * Every hold first pops the section's overdue and already settled holds off the front of that queue, which
+ * is usually a single peek. {@link #expireDue()} does the same for all sections, for callers that want
+ * seats back on sale without waiting for the next hold.
+ */
+public class SeatInventory {
+
+    static final int HELD = 0;
+    static final int CONFIRMED = 1;
+    static final int RELEASED = 2;
+    static final int EXPIRED = 3;
+
+    private final Section[] sections;
+    private final int seatsPerSection;
+    private final long holdNanos;
+    private final LongAdder booked = new LongAdder();
+
+    public SeatInventory(int sectionCount, int seatsPerSection, long holdMillis) {
+        if (sectionCount < 1 || seatsPerSection < 1 || holdMillis < 0) {
+            throw new IllegalArgumentException("need at least one section and one seat, and a non-negative hold time");
+        }
+        this.seatsPerSection = seatsPerSection;
+        this.holdNanos = TimeUnit.MILLISECONDS.toNanos(holdMillis);
+        this.sections = new Section[sectionCount];
+        for (int i = 0; i < sectionCount; i++) {
+            sections[i] = new Section(seatsPerSection);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        SeatInventory event = new SeatInventory(2, 4, 100);
+
+        Hold family = event.hold(0, 3);
+        System.out.println("Held: " + family); // three seats in section 0
+        System.out.println("Confirmed: " + event.confirm(family)); // Expected: true
+        System.out.println("Hold 2 more in section 0: " + event.hold(0, 2)); // Expected: null (1 left)
+
+        Hold abandoned = event.hold(1, 4);
+        Thread.sleep(150);
+        System.out.println("Confirm after timeout: " + event.confirm(abandoned)); // Expected: false
+        System.out.println("Seats on sale in section 1: " + event.available(1)); // Expected: 4
+        System.out.println("Booked: " + event.booked()); // Expected: 3
+    }
+
+    /**
+     * Holds {@code count} seats in a section, or returns null if it has fewer than that on sale.
+     */
+    public Hold hold(int section, int count) {
+        if (count < 1 || count > seatsPerSection) {
+            throw new IllegalArgumentException("cannot hold " + count + " seats in a section of " + seatsPerSection);
+        }
+        Section s = sections[section];
+        expireDue(s);
+        if (!s.reserve(count)) {
+            return null;
+        }
+        int[] seats = new int[count];
+        for (int i = 0; i < count; i++) {
+            seats[i] = s.claimSeat();
+        }
+        Hold hold = new Hold(section, seats, System.nanoTime() + holdNanos);
+        s.pending.add(hold);
+        return hold;
+    }
+
+    /**
+     * Books the held seats. Fails if the hold has expired or was released or confirmed before.
+     */
+    public boolean confirm(Hold hold) {
+        if (System.nanoTime() - hold.deadline > 0) {
+            expire(hold);
+            return false;
+        }
+        if (!hold.state.compareAndSet(HELD, CONFIRMED)) {
+            return false;
+        }
+        booked.add(hold.seats.length);
+        return true;
+    }
+
+    /**
+     * Gives the seats of an unconfirmed hold back.
+     */
+    public boolean release(Hold hold) {
+        if (!hold.state.compareAndSet(HELD, RELEASED)) {
+            return false;
+        }
+        sections[hold.section].giveBack(hold.seats);
+        return true;
+    }
+
+    /**
+     * Expires every overdue hold in every section and returns how many there were.
+     */
+    public int expireDue() {
+        int expired = 0;
+        for (Section section : sections) {
+            expired += expireDue(section);
+        }
+        return expired;
+    }
+
+    public int available(int section) {
+        return sections[section].available.get();
+    }
+
+    public int available() {
+        int available = 0;
+        for (Section section : sections) {
+            available += section.available.get();
+        }
+        return available;
+    }
+
+    public long booked() {
+        return booked.sum();
+    }
+
+    public int capacity() {
+        return sections.length * seatsPerSection;
+    }
+
+    public int sectionCount() {
+        return sections.length;
+    }
+
+    private int expireDue(Section section) {
+        int expired = 0;
+        long now = System.nanoTime();
+        Hold head;
+        while ((head = section.pending.peek()) != null) {
+            if (head.state.get() == HELD && now - head.deadline < 0) {
+                break; // deadlines are in queue order, so nothing further back is due either
+            }
+            if (section.pending.remove(head) && expire(head)) {
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    private boolean expire(Hold hold) {
+        if (!hold.state.compareAndSet(HELD, EXPIRED)) {
+            return false;
+        }
+        sections[hold.section].giveBack(hold.seats);
+        return true;
+    }
+
+    private static final class Section {
+        final AtomicInteger available;
+        final AtomicLongArray taken;
+        final ConcurrentLinkedQueue<Hold> pending = new ConcurrentLinkedQueue<>();
+
+        Section(int seats) {
+            available = new AtomicInteger(seats);
+            taken = new AtomicLongArray((seats + 63) >>> 6);
+            if ((seats & 63) != 0) {
+                taken.set(seats >>> 6, -1L << (seats & 63)); // bits past the last seat never go on sale
+            }
+        }
+
+        boolean reserve(int count) {
+            int current;
+            while ((current = available.get()) >= count) {
+                if (available.compareAndSet(current, current - count)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Only called after a successful {@link #reserve}, so a clear bit exists or is about to.
+         */
+        int claimSeat() {
+            int words = taken.length();
+            int word = ThreadLocalRandom.current().nextInt(words);
+            while (true) {
+                for (int i = 0; i < words; i++, word = word + 1 == words ? 0 : word + 1) {
+                    long current = taken.get(word);
+                    while (current != -1L) {
+                        long bit = Long.lowestOneBit(~current);
+                        long witness = taken.compareAndExchange(word, current, current | bit);
+                        if (witness == current) {
+                            return (word << 6) | Long.numberOfTrailingZeros(bit);
+                        }
+                        current = witness;
+                    }
+                }
+            }
+        }
+
+        void giveBack(int[] seats) {
+            for (int seat : seats) {
+                long bit = 1L << seat;
+                long current = taken.get(seat >>> 6);
+                long witness;
+                while ((witness = taken.compareAndExchange(seat >>> 6, current, current & ~bit)) != current) {
+                    current = witness;
+                }
+            }
+            available.addAndGet(seats.length);
+        }
+    }
+
+    /**
+     * Seats held for one customer until {@link #confirm} or the hold timeout.
+     */
+    public static final class Hold {
+        private final int section;
+        private final int[] seats;
+        private final long deadline;
+        final AtomicInteger state = new AtomicInteger(HELD);
+
+        Hold(int section, int[] seats, long deadline) {
+            this.section = section;
+            this.seats = seats;
+            this.deadline = deadline;
+        }
+
+        public int getSection() {
+            return section;
+        }
+
+        public int[] getSeats() {
+            return seats.clone();
+        }
+
+        public boolean isConfirmed() {
+            return state.get() == CONFIRMED;
+        }
+
+        @Override
+        public String toString() {
+            return "section " + section + " seats " + Arrays.toString(seats);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package Threads.deadlock;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Global "acquired before" graph of {@link TrackedLock}s. An edge A -> B means some thread took B while
+ * holding A. If B -> ... -> A already exists, the new edge closes a cycle: two threads following the two
+ * orders at the same time can deadlock. Each cycle is reported once, when its last edge first appears.
+ * <p>
+ * Adding an edge is rare (once per pair of locks), so it simply runs under one global lock. The edge
+ * set of a lock is only ever written here; the acquire path reads its successor ids without locking.
+ * <p>
+ * The graph holds locks only through weak references, so it does not keep per-object locks alive. The
+ * vertex of a collected lock is unlinked, and its id removed from its predecessors, on the next
+ * {@code addEdge}. Reported cycles keep their locks, since a report names them.
+ */
+public final class LockOrderGraph {
+
+    private static final Object GRAPH_LOCK = new Object();
+    // vertices whose lock was collected; drained under GRAPH_LOCK
+    private static final ReferenceQueue<TrackedLock> COLLECTED = new ReferenceQueue<>();
+    private static final List<PotentialDeadlock> REPORTED = Collections.synchronizedList(new ArrayList<>());
+    private static volatile Consumer<PotentialDeadlock> listener = deadlock -> System.err.println(deadlock);
+
+    private LockOrderGraph() {
+    }
+
+    /**
+     * Replaces the default listener, which prints every report to {@code System.err}.
+     */
+    public static void onPotentialDeadlock(Consumer<PotentialDeadlock> newListener) {
+        listener = newListener;
+    }
+
+    /**
+     * Every cycle reported so far.
+     */
+    public static List<PotentialDeadlock> reported() {
+        synchronized (REPORTED) {
+            return new ArrayList<>(REPORTED);
+        }
+    }
+
+    static void addEdge(TrackedLock from, TrackedLock to) {
+        PotentialDeadlock deadlock;
+        synchronized (GRAPH_LOCK) {
+            unlinkCollected();
+            if (from.precedes(to)) {
+                return; // another thread added it first
+            }
+            Node fromNode = nodeOf(from);
+            Node toNode = nodeOf(to);
+            List<Edge> path = findPath(toNode, fromNode);
+            String thread = Thread.currentThread().getName();
+            fromNode.out.add(new Link(fromNode, toNode, thread));
+            toNode.in.add(fromNode);
+            from.successors = withId(from.successors, to.id);
+            if (path == null) {
+                return;
+            }
+            path.add(0, new Edge(from, to, thread));
+            deadlock = new PotentialDeadlock(path);
+        }
+        REPORTED.add(deadlock);
+        listener.accept(deadlock);
+    }
+
+    private static Node nodeOf(TrackedLock lock) {
+        if (lock.node == null) {
+            lock.node = new Node(lock);
+        }
+        return lock.node;
+    }
+
+    /**
+     * Removes the vertices of collected locks. A vertex stays reachable through its neighbours' edge
+     * lists until then, which is what gets its reference enqueued.
+     */
+    private static void unlinkCollected() {
+        Reference<? extends TrackedLock> reference;
+        while ((reference = COLLECTED.poll()) != null) {
+            Node dead = (Node) reference;
+            for (Node predecessor : dead.in) {
+                predecessor.out.removeIf(link -> link.to == dead);
+                TrackedLock lock = predecessor.get();
+                if (lock != null) {
+                    lock.successors = withoutId(lock.successors, dead.id);
+                }
+            }
+            for (Link link : dead.out) {
+                link.to.in.remove(dead);
+            }
+            dead.in.clear();
+            dead.out.clear();
+        }
+    }
+
+    /**
+     * Breadth-first search for the shortest chain of edges from {@code start} to {@code target}, or null.
+     * Collected locks are skipped: they can no longer take part in a deadlock.
+     */
+    private static List<Edge> findPath(Node start, Node target) {
+        Map<Node, Link> reachedBy = new HashMap<>();
+        ArrayDeque<Node> queue = new ArrayDeque<>();
+        queue.add(start);
+        reachedBy.put(start, null);
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            if (node == target) {
+                List<Edge> path = new ArrayList<>();
+                for (Link link = reachedBy.get(node); link != null; link = reachedBy.get(link.from)) {
+                    TrackedLock fromLock = link.from.get();
+                    TrackedLock toLock = link.to.get();
+                    if (fromLock == null || toLock == null) {
+                        return null; // collected since the search passed it
+                    }
+                    path.add(0, new Edge(fromLock, toLock, link.thread));
+                }
+                return path;
+            }
+            for (Link link : node.out) {
+                if (!reachedBy.containsKey(link.to) && !link.to.refersTo(null)) {
+                    reachedBy.put(link.to, link);
+                    queue.add(link.to);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static long[] withId(long[] ids, long id) {
+        int at = -Arrays.binarySearch(ids, id) - 1;
+        long[] copy = new long[ids.length + 1];
+        System.arraycopy(ids, 0, copy, 0, at);
+        copy[at] = id;
+        System.arraycopy(ids, at, copy, at + 1, ids.length - at);
+        return copy;
+    }
+
+    private static long[] withoutId(long[] ids, long id) {
+        int at = Arrays.binarySearch(ids, id);
+        if (at < 0) {
+            return ids;
+        }
+        long[] copy = new long[ids.length - 1];
+        System.arraycopy(ids, 0, copy, 0, at);
+        System.arraycopy(ids, at + 1, copy, at, ids.length - at - 1);
+        return copy;
+    }
+
+    /**
+     * A lock's vertex, holding the lock weakly. Guarded by GRAPH_LOCK.
+     */
+    static final class Node extends WeakReference<TrackedLock> {
+        final long id;
+        final List<Node> in = new ArrayList<>();
+        final List<Link> out = new ArrayList<>(); // in the order they were first seen
+
+        Node(TrackedLock lock) {
+            super(lock, COLLECTED);
+            this.id = lock.id;
+        }
+    }
+
+    private static final class Link {
+        final Node from;
+        final Node to;
+        final String thread;
+
+        Link(Node from, Node to, String thread) {
+            this.from = from;
+            this.to = to;
+            this.thread = thread;
+        }
+    }
+
+    /**
+     * One "held before" relation and the thread that first used it.
+     */
+    public static final class Edge {
+        private final TrackedLock from;
+        private final TrackedLock to;
+        private final String thread;
+
+        Edge(TrackedLock from, TrackedLock to, String thread) {
+            this.from = from;
+            this.to = to;
+            this.thread = thread;
+        }
+
+        public TrackedLock getFrom() {
+            return from;
+        }
+
+        public TrackedLock getTo() {
+            return to;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        @Override
+        public String toString() {
+            return from + " -> " + to + " (" + thread + ")";
+        }
+    }
+
+    /**
+     * A cycle in the lock order, starting with the edge that closed it.
+     */
+    public static final class PotentialDeadlock {
+        private final List<Edge> cycle;
+
+        PotentialDeadlock(List<Edge> cycle) {
+            this.cycle = List.copyOf(cycle);
+        }
+
+        public List<Edge> getCycle() {
+            return cycle;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder("potential deadlock: ");
+            for (int i = 0; i < cycle.size(); i++) {
+                text.append(i == 0 ? "" : ", ").append(cycle.get(i));
+            }
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package Threads.deadlock;
+
+import benchmark.LatencyHistogram;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link ReentrantLock} that checks lock ordering while the program runs, so an ordering mistake like
+ * the one in {@link Threads.DeadlockExample} is reported the first time the two orders are used, even
+ * if the threads never actually deadlock.
+ * <p>
+ * Every thread keeps a stack of the tracked locks it holds. When it takes a lock while holding others,
+ * each held lock gets an edge "held before this one" in the global {@link LockOrderGraph}. A new edge
+ * that closes a cycle is a potential deadlock and is reported once, with the threads that used each
+ * order. Edges that are already known cost one binary search of the held lock's successors each, so
+ * after warm-up the check is a few loads per acquire.
+ * <p>
+ * Uncontended acquires go through {@code tryLock()} and are not timed. Only when that fails is the wait
+ * timed and recorded in the lock's {@link #waits() histogram}, so the clock is read only when the thread
+ * blocks anyway. The histogram is created on the first wait, so a lock that is never contended costs
+ * no more than a ReentrantLock and a few fields. The graph only holds locks weakly, so per-object locks
+ * (one per account, say) can be collected with their objects.
+ * <p>
+ * Java monitors cannot be intercepted, so code that wants tracking replaces {@code synchronized (x)}
+ * with {@code try (TrackedLock held = x.acquire())}.
+ * <p>
+ * The {@code tryLock} methods never block forever, so they push the lock on the held stack without
+ * adding edges. While a thread waits on a {@link #newCondition() condition} its stack still lists the
+ * lock, which it holds again once {@code await} returns.
+ */
+public class TrackedLock implements Lock, AutoCloseable {
+
+    private static final AtomicLong IDS = new AtomicLong();
+    private static final ThreadLocal<HeldLocks> HELD = ThreadLocal.withInitial(HeldLocks::new);
+    private static final long[] NO_SUCCESSORS = new long[0];
+    private static final AtomicReferenceFieldUpdater<TrackedLock, LatencyHistogram> WAITS =
+            AtomicReferenceFieldUpdater.newUpdater(TrackedLock.class, LatencyHistogram.class, "waits");
+
+    // never reused, so an id left behind by a collected lock can never match a new one
+    final long id = IDS.getAndIncrement();
+    private final String name;
+    private final ReentrantLock delegate = new ReentrantLock();
+    private volatile LatencyHistogram waits;
+
+    // sorted ids of the locks that have been taken while holding this one. Written by LockOrderGraph only
+    volatile long[] successors = NO_SUCCESSORS;
+    // this lock's vertex in the graph, or null before its first edge. Guarded by LockOrderGraph's lock
+    LockOrderGraph.Node node;
+
+    public TrackedLock(String name) {
+        this.name = name;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        TrackedLock lock1 = new TrackedLock("lock1");
+        TrackedLock lock2 = new TrackedLock("lock2");
+        LockOrderGraph.onPotentialDeadlock(deadlock -> System.out.println("Reported " + deadlock));
+
+        // the lock orders of DeadlockExample, one after the other so nothing actually hangs
+        Thread t1 = new Thread(() -> {
+            lock1.lock();
+            try {
+                lock2.lock();
+                try {
+                    System.out.println("Thread 1 acquired lock1, then lock2");
+                } finally {
+                    lock2.unlock();
+                }
+            } finally {
+                lock1.unlock();
+            }
+        }, "thread-1");
+        Thread t2 = new Thread(() -> {
+            lock2.lock();
+            try {
+                lock1.lock();
+                try {
+                    System.out.println("Thread 2 acquired lock2, then lock1");
+                } finally {
+                    lock1.unlock();
+                }
+            } finally {
+                lock2.unlock();
+            }
+        }, "thread-2");
+        t1.start();
+        t1.join();
+        t2.start();
+        t2.join();
+        // Expected: Reported potential deadlock: lock2 -> lock1 (thread-2), lock1 -> lock2 (thread-1)
+    }
+
+    /**
+     * Locks and returns this lock, for use in try-with-resources.
+     */
+    public TrackedLock acquire() {
+        lock();
+        return this;
+    }
+
+    @Override
+    public void lock() {
+        HeldLocks held = checkOrder();
+        if (!delegate.tryLock()) {
+            long start = System.nanoTime();
+            delegate.lock();
+            recordWait(start);
+        }
+        held.push(this);
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        HeldLocks held = checkOrder();
+        if (!delegate.tryLock()) {
+            long start = System.nanoTime();
+            delegate.lockInterruptibly();
+            recordWait(start);
+        }
+        held.push(this);
+    }
+
+    @Override
+    public boolean tryLock() {
+        if (!delegate.tryLock()) {
+            return false;
+        }
+        HELD.get().push(this);
+        return true;
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        if (!delegate.tryLock()) {
+            long start = System.nanoTime();
+            if (!delegate.tryLock(time, unit)) {
+                return false;
+            }
+            recordWait(start);
+        }
+        HELD.get().push(this);
+        return true;
+    }
+
+    @Override
+    public void unlock() {
+        delegate.unlock();
+        HELD.get().remove(this);
+    }
+
+    /**
+     * Same as {@link #unlock()}, so {@link #acquire()} works in try-with-resources.
+     */
+    @Override
+    public void close() {
+        unlock();
+    }
+
+    @Override
+    public Condition newCondition() {
+        return delegate.newCondition();
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return delegate.isHeldByCurrentThread();
+    }
+
+    /**
+     * Time spent waiting for this lock, one entry per acquire that found it taken.
+     */
+    public LatencyHistogram waits() {
+        LatencyHistogram histogram = waits;
+        if (histogram == null) {
+            WAITS.compareAndSet(this, null, new LatencyHistogram(name + " wait"));
+            histogram = waits;
+        }
+        return histogram;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    boolean precedes(TrackedLock other) {
+        long[] ids = successors;
+        return ids.length != 0 && Arrays.binarySearch(ids, other.id) >= 0;
+    }
+
+    private void recordWait(long startNanos) {
+        long waited = System.nanoTime() - startNanos; // read before the histogram may have to be created
+        waits().record(waited);
+    }
+
+    /**
+     * Adds an edge from every held lock to this one, unless the thread already holds this lock (then it
+     * is a re-entry and cannot block).
+     */
+    private HeldLocks checkOrder() {
+        HeldLocks held = HELD.get();
+        if (held.size > 0 && !delegate.isHeldByCurrentThread()) {
+            for (int i = 0; i < held.size; i++) {
+                TrackedLock before = held.locks[i];
+                if (!before.precedes(this)) {
+                    LockOrderGraph.addEdge(before, this);
+                }
+            }
+        }
+        return held;
+    }
+
+    /**
+     * Tracked locks held by one thread, in acquire order; a re-entered lock appears once per hold.
+     */
+    private static final class HeldLocks {
+        TrackedLock[] locks = new TrackedLock[8];
+        int size;
+
+        void push(TrackedLock lock) {
+            if (size == locks.length) {
+                TrackedLock[] grown = new TrackedLock[size * 2];
+                System.arraycopy(locks, 0, grown, 0, size);
+                locks = grown;
+            }
+            locks[size++] = lock;
+        }
+
+        /**
+         * Locks are usually released in reverse order, so the search starts at the top.
+         */
+        void remove(TrackedLock lock) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (locks[i] == lock) {
+                    System.arraycopy(locks, i + 1, locks, i, size - i - 1);
+                    locks[--size] = null;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package Threads.executorService;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * How a simulation runs its tasks, chosen on the command line ({@code platform}, {@code fixed_pool} or
+ * {@code virtual}) so the same simulation can compare them:
+ * <ul>
+ *     <li>PLATFORM: one platform thread per running task</li>
+ *     <li>FIXED_POOL: a fixed number of platform threads; extra tasks wait in the pool's queue</li>
+ *     <li>VIRTUAL: one virtual thread per task. Blocking in sleep or on a semaphore parks the virtual
+ *     thread instead of its carrier, so hundreds of thousands of mostly sleeping clients stay cheap.</li>
+ * </ul>
+ * Virtual threads need Java 21 or newer. The executor is looked up reflectively, so this class still
+ * compiles and runs the other modes on older JDKs.
+ */
+public enum ExecutionMode {
+    PLATFORM,
+    FIXED_POOL,
+    VIRTUAL;
+
+    public static final int DEFAULT_POOL_SIZE = 3;
+
+    private static final Method NEW_VIRTUAL_EXECUTOR = findVirtualExecutorFactory();
+
+    public static void main(String[] args) {
+        for (ExecutionMode mode : values()) {
+            System.out.println(mode + " available: " + mode.isAvailable()); // VIRTUAL only on Java 21+
+        }
+    }
+
+    /**
+     * Reads the mode from {@code args[0]}, case-insensitively, or returns {@code defaultMode} if there is none.
+     */
+    public static ExecutionMode fromArgs(String[] args, ExecutionMode defaultMode) {
+        return args.length > 0 ? valueOf(args[0].toUpperCase(Locale.ROOT)) : defaultMode;
+    }
+
+    public boolean isAvailable() {
+        return this != VIRTUAL || NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+    public ExecutorService newExecutor() {
+        return newExecutor(DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * @param poolSize number of threads for FIXED_POOL; ignored by the other modes
+     */
+    public ExecutorService newExecutor(int poolSize) {
+        switch (this) {
+            case PLATFORM:
+                // a cached pool starts a new thread whenever every existing one is busy
+                return Executors.newCachedThreadPool();
+            case FIXED_POOL:
+                return Executors.newFixedThreadPool(poolSize);
+            default:
+                if (NEW_VIRTUAL_EXECUTOR == null) {
+                    throw new UnsupportedOperationException("virtual threads need Java 21 or newer, running on "
+                            + System.getProperty("java.version"));
+                }
+                try {
+                    return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new IllegalStateException("could not create a virtual thread executor", e);
+                }
+        }
+    }
+
+    private static Method findVirtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package Threads.executorService;
+
+import jdk.jfr.consumer.RecordingStream;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs N mostly sleeping client tasks in each {@link ExecutionMode} and reports:
+ * <ul>
+ *     <li>tasks/sec: N divided by the time from the first submit until the last task finished</li>
+ *     <li>memory per in-flight task: growth of used heap and of resident set size (Linux only), measured
+ *     once every task that can run at the same time has started, divided by that number of tasks</li>
+ *     <li>pinning events: {@code jdk.VirtualThreadPinned} events from a JFR stream. These are virtual
+ *     threads that blocked while holding a monitor and so kept their carrier thread. A share of the tasks
+ *     ({@code pinnedPercent}) sleeps inside a synchronized block to show it.</li>
+ * </ul>
+ * A mode is skipped at a size it cannot reasonably handle: platform threads above {@code maxPlatformThreads},
+ * and the fixed pool when draining its queue would take more than a minute. VIRTUAL is reported as
+ * unavailable before Java 21.
+ * <p>
+ * Usage: {@code java -Xmx4g Threads.executorService.ExecutionModeHarness [sleepMillis] [pinnedPercent] [poolSize] [maxPlatformThreads]}
+ * (defaults 1000, 0, 200, 10000). Task counts are 1K, 10K and 1M.
+ */
+public class ExecutionModeHarness {
+
+    private static final int[] TASK_COUNTS = {1_000, 10_000, 1_000_000};
+    private static final long MAX_QUEUE_DRAIN_MILLIS = 60_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        long sleepMillis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int pinnedPercent = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        int poolSize = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int maxPlatformThreads = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+
+        PinningMonitor pinning = PinningMonitor.start();
+        System.out.printf("%-11s %10s %14s %14s %14s %10s%n",
+                "mode", "tasks", "tasks/sec", "heap B/task", "RSS B/task", "pinned");
+        for (int tasks : TASK_COUNTS) {
+            for (ExecutionMode mode : ExecutionMode.values()) {
+                String skipReason = skipReason(mode, tasks, sleepMillis, poolSize, maxPlatformThreads);
+                if (skipReason != null) {
+                    System.out.printf("%-11s %10d   %s%n", mode, tasks, skipReason);
+                    continue;
+                }
+                long pinnedBefore = pinning.count();
+                Result result = run(mode, tasks, sleepMillis, pinnedPercent, poolSize);
+                System.out.printf("%-11s %10d %14.0f %14.0f %14s %10s%n", mode, tasks, result.tasksPerSecond,
+                        result.heapBytesPerTask, Double.isNaN(result.rssBytesPerTask) ? "n/a" : String.format("%.0f", result.rssBytesPerTask),
+                        pinning.isAvailable() ? String.valueOf(pinning.count() - pinnedBefore) : "n/a");
+            }
+        }
+        pinning.close();
+    }
+
+    private static String skipReason(ExecutionMode mode, int tasks, long sleepMillis, int poolSize, int maxPlatformThreads) {
+        if (!mode.isAvailable()) {
+            return "skipped: needs Java 21+ (running " + System.getProperty("java.version") + ")";
+        }
+        if (mode == ExecutionMode.PLATFORM && tasks > maxPlatformThreads) {
+            return "skipped: more than " + maxPlatformThreads + " platform threads";
+        }
+        if (mode == ExecutionMode.FIXED_POOL && (long) tasks * sleepMillis / poolSize > MAX_QUEUE_DRAIN_MILLIS) {
+            return "skipped: the pool of " + poolSize + " would need " + (long) tasks * sleepMillis / poolSize / 1000 + "s";
+        }
+        return null;
+    }
+
+    private static Result run(ExecutionMode mode, int tasks, long sleepMillis, int pinnedPercent, int poolSize)
+            throws InterruptedException {
+        int concurrent = mode == ExecutionMode.FIXED_POOL ? Math.min(tasks, poolSize) : tasks;
+
+        long heapBefore = usedHeap();
+        long rssBefore = residentSetSize();
+        CountDownLatch started = new CountDownLatch(concurrent);
+        CountDownLatch finished = new CountDownLatch(tasks);
+        LongAdder failures = new LongAdder();
+
+        ExecutorService executor = mode.newExecutor(poolSize);
+        long start = System.nanoTime();
+        for (int i = 0; i < tasks; i++) {
+            // each pinned task has its own monitor, so pinning is not confused with lock contention
+            Object monitor = i % 100 < pinnedPercent ? new Object() : null;
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    if (monitor != null) {
+                        synchronized (monitor) {
+                            Thread.sleep(sleepMillis);
+                        }
+                    } else {
+                        Thread.sleep(sleepMillis);
+                    }
+                } catch (InterruptedException e) {
+                    failures.increment();
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        started.await();
+        long heapInFlight = usedHeap();
+        long rssInFlight = residentSetSize();
+        finished.await();
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        if (failures.sum() > 0) {
+            throw new IllegalStateException(failures.sum() + " tasks were interrupted");
+        }
+
+        return new Result(tasks * 1e9 / elapsed, (double) (heapInFlight - heapBefore) / concurrent,
+                rssBefore < 0 ? Double.NaN : (double) (rssInFlight - rssBefore) / concurrent);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Resident set size in bytes from /proc/self/status, or -1 where that file does not exist.
+     * Heap and RSS deltas include GC noise, so small or negative values mean "too small to see".
+     */
+    private static long residentSetSize() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not Linux
+        }
+        return -1;
+    }
+
+    private static final class Result {
+        final double tasksPerSecond;
+        final double heapBytesPerTask;
+        final double rssBytesPerTask;
+
+        Result(double tasksPerSecond, double heapBytesPerTask, double rssBytesPerTask) {
+            this.tasksPerSecond = tasksPerSecond;
+            this.heapBytesPerTask = heapBytesPerTask;
+            this.rssBytesPerTask = rssBytesPerTask;
+        }
+    }
+
+    /**
+     * Counts {@code jdk.VirtualThreadPinned} JFR events in the background. The event only exists on JDKs
+     * with virtual threads; elsewhere the monitor reports itself unavailable.
+     */
+    private static final class PinningMonitor implements AutoCloseable {
+        private final AtomicLong count = new AtomicLong();
+        private final boolean available;
+        private RecordingStream stream;
+
+        private PinningMonitor(boolean available) {
+            this.available = available;
+        }
+
+        static PinningMonitor start() {
+            if (!ExecutionMode.VIRTUAL.isAvailable()) {
+                return new PinningMonitor(false);
+            }
+            PinningMonitor monitor = new PinningMonitor(true);
+            RecordingStream stream = new RecordingStream();
+            stream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            stream.onEvent("jdk.VirtualThreadPinned", event -> monitor.count.incrementAndGet());
+            stream.startAsync();
+            monitor.stream = stream;
+            return monitor;
+        }
+
+        boolean isAvailable() {
+            return available;
+        }
+
+        /**
+         * JFR delivers events about once a second, so this waits for the last run's events to arrive.
+         */
+        long count() throws InterruptedException {
+            if (available) {
+                Thread.sleep(1500);
+            }
+            return count.get();
+        }
+
+        @Override
+        public void close() {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+}
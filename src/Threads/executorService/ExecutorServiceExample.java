@@ -1,14 +1,16 @@
 package Threads.executorService;
 
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
+/**
+ * Usage: {@code java Threads.executorService.ExecutorServiceExample [platform|fixed_pool|virtual]} (default fixed_pool).
+ */
 public class ExecutorServiceExample {
 
     public static void main(String[] args) {
 
 
-        ExecutorService es = Executors.newFixedThreadPool(3);
+        ExecutorService es = ExecutionMode.fromArgs(args, ExecutionMode.FIXED_POOL).newExecutor();
 
 
         for (int i = 0; i < 10; i++) {
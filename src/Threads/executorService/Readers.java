@@ -1,20 +1,35 @@
 package Threads.executorService;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.Semaphore;
+import Threads.semaphore.AdaptiveLimiter;
+import Threads.semaphore.LimitAlgorithm;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Usage: {@code java Threads.executorService.Readers [platform|fixed_pool|virtual]} (default platform).
+ */
 public class Readers {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
 
-        Semaphore s = new Semaphore(3);
-        List<Thread> threads = new ArrayList<>();
+        // starts at 3 readers at a time; a reader waits at most 30 s for its turn
+        AdaptiveLimiter s = new AdaptiveLimiter(LimitAlgorithm.AIMD, 3, 10, 30_000);
+        ExecutorService readers = ExecutionMode.fromArgs(args, ExecutionMode.PLATFORM).newExecutor();
 
         for (int i = 0; i < 10; i++) {
-            Thread t1 = new Thread(() -> {
+            readers.submit(() -> {
                 try {
                     s.acquire();
+                } catch (RejectedExecutionException e) {
+                    System.out.println(Thread.currentThread().getName() + " gave up: " + e.getMessage());
+                    return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
                     System.out.println(Thread.currentThread().getName() + " is reading..");
                     Thread.sleep(7000);
                     System.out.println(Thread.currentThread().getName() + " reading done");
@@ -25,17 +40,10 @@ public class Readers {
 
                 }
             });
-            t1.start();
-            threads.add(t1);
         }
 
-        threads.forEach((t) -> {
-            try {
-                t.join();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        });
+        readers.shutdown();
+        readers.awaitTermination(1, TimeUnit.HOURS);
 
     }
 }
@@ -0,0 +1,281 @@
+package Threads.ledger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Transfer engine for millions of accounts, without the per-account locks of {@link Threads.BankAccount}.
+ * <p>
+ * Accounts are split into shards ({@code account % shardCount}). Each shard owns its balances and is
+ * the only thread that ever reads or writes them. Commands reach a shard through its queue, and the shard
+ * drains them in batches of up to {@value #BATCH_SIZE}, so one wake-up applies many transfers.
+ * <p>
+ * A transfer inside one shard is applied in one step. A transfer between shards has two phases: the
+ * source shard debits the sender (or rejects the transfer if the balance is too low), then passes the
+ * same command to the target shard, which credits the receiver and completes the transfer. A balance
+ * therefore never goes negative. Money in flight between the phases is not in any balance, and the
+ * total is exact again once every transfer has completed.
+ */
+public class Ledger implements AutoCloseable {
+
+    static final int BATCH_SIZE = 256;
+
+    private final Shard[] shards;
+    private final int accounts;
+
+    public Ledger(int accounts, long initialBalance, int shardCount) {
+        if (accounts < 2 || shardCount < 1 || initialBalance < 0) {
+            throw new IllegalArgumentException("need at least 2 accounts, 1 shard and a non-negative balance");
+        }
+        this.accounts = accounts;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, (accounts - i + shardCount - 1) / shardCount, initialBalance);
+        }
+        for (Shard shard : shards) {
+            shard.start();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (Ledger ledger = new Ledger(1_000, 500, 4)) {
+            TransferStatus sameShard = ledger.transfer(1, 5, 200).get(); // 1 and 5 are both in shard 1
+            TransferStatus crossShard = ledger.transfer(1, 2, 200).get();
+            TransferStatus overdraft = ledger.transfer(1, 3, 200).get();
+
+            System.out.println("Same-shard transfer: " + sameShard); // Expected: COMPLETED
+            System.out.println("Cross-shard transfer: " + crossShard); // Expected: COMPLETED
+            System.out.println("Overdraft: " + overdraft); // Expected: INSUFFICIENT_FUNDS
+            System.out.println("Balances: " + ledger.balance(1).get() + ", " + ledger.balance(2).get()
+                    + ", " + ledger.balance(5).get()); // Expected: 100, 700, 700
+        }
+    }
+
+    /**
+     * Queues a transfer. The future completes on a shard thread once the money has arrived, or as soon
+     * as the sender turns out to have too little.
+     */
+    public CompletableFuture<TransferStatus> transfer(int from, int to, long amount) {
+        checkAccount(from);
+        checkAccount(to);
+        if (from == to || amount <= 0) {
+            throw new IllegalArgumentException("transfer needs two different accounts and a positive amount");
+        }
+        Transfer transfer = new Transfer(from, to, amount);
+        shardOf(from).queue.add(transfer);
+        return transfer.result;
+    }
+
+    /**
+     * Reads a balance on the owning shard thread, in order with the transfers queued before it.
+     */
+    public CompletableFuture<Long> balance(int account) {
+        checkAccount(account);
+        BalanceQuery query = new BalanceQuery(account);
+        shardOf(account).queue.add(query);
+        return query.result;
+    }
+
+    public int accounts() {
+        return accounts;
+    }
+
+    /**
+     * Sum of all balances. Only exact when no transfer is in flight, e.g. after {@link #close()}.
+     */
+    public long totalBalance() {
+        long total = 0;
+        for (Shard shard : shards) {
+            for (long balance : shard.balances) {
+                total += balance;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Lowest balance of any account; never negative. Same caveat as {@link #totalBalance()}.
+     */
+    public long minimumBalance() {
+        long minimum = Long.MAX_VALUE;
+        for (Shard shard : shards) {
+            for (long balance : shard.balances) {
+                minimum = Math.min(minimum, balance);
+            }
+        }
+        return minimum;
+    }
+
+    /**
+     * Finishes every transfer queued before this call, then stops the shard threads.
+     * Must not run concurrently with {@link #transfer}. An interrupt does not cut this short; the
+     * thread's interrupt flag is set again before it returns.
+     */
+    @Override
+    public void close() {
+        // the first barrier lets every pending debit run and hand its credit on; the second one runs
+        // behind those credits, since they were all queued before it
+        boolean interrupted = barrier();
+        interrupted |= barrier();
+        for (Shard shard : shards) {
+            shard.queue.add(Stop.INSTANCE);
+        }
+        for (Shard shard : shards) {
+            while (true) {
+                try {
+                    shard.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns once every shard has run everything queued before the barrier, and whether the thread was
+     * interrupted while it waited.
+     */
+    private boolean barrier() {
+        CountDownLatch latch = new CountDownLatch(shards.length);
+        for (Shard shard : shards) {
+            shard.queue.add(new Barrier(latch));
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                return interrupted;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+    }
+
+    private Shard shardOf(int account) {
+        return shards[account % shards.length];
+    }
+
+    private void checkAccount(int account) {
+        if (account < 0 || account >= accounts) {
+            throw new IllegalArgumentException("no such account: " + account);
+        }
+    }
+
+    private final class Shard extends Thread {
+        final BlockingQueue<Command> queue = new LinkedBlockingQueue<>();
+        final long[] balances;
+        private boolean stopped;
+
+        Shard(int index, int accountCount, long initialBalance) {
+            super("ledger-shard-" + index);
+            setDaemon(true);
+            balances = new long[accountCount];
+            Arrays.fill(balances, initialBalance);
+        }
+
+        @Override
+        public void run() {
+            List<Command> batch = new ArrayList<>(BATCH_SIZE);
+            try {
+                while (!stopped) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                    for (Command command : batch) {
+                        command.apply(this);
+                    }
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int local(int account) {
+            return account / shards.length;
+        }
+    }
+
+    private abstract static class Command {
+        abstract void apply(Shard shard);
+    }
+
+    private final class Transfer extends Command {
+        final int from;
+        final int to;
+        final long amount;
+        final CompletableFuture<TransferStatus> result = new CompletableFuture<>();
+        // set once the source shard has taken the money
+        boolean debited;
+
+        Transfer(int from, int to, long amount) {
+            this.from = from;
+            this.to = to;
+            this.amount = amount;
+        }
+
+        @Override
+        void apply(Shard shard) {
+            if (!debited) {
+                int source = shard.local(from);
+                if (shard.balances[source] < amount) {
+                    result.complete(TransferStatus.INSUFFICIENT_FUNDS);
+                    return;
+                }
+                shard.balances[source] -= amount;
+                debited = true;
+                Shard target = shardOf(to);
+                if (target != shard) {
+                    target.queue.add(this); // phase two runs on the receiver's shard
+                    return;
+                }
+            }
+            shard.balances[shard.local(to)] += amount;
+            result.complete(TransferStatus.COMPLETED);
+        }
+    }
+
+    private static final class BalanceQuery extends Command {
+        final int account;
+        final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        BalanceQuery(int account) {
+            this.account = account;
+        }
+
+        @Override
+        void apply(Shard shard) {
+            result.complete(shard.balances[shard.local(account)]);
+        }
+    }
+
+    private static final class Barrier extends Command {
+        final CountDownLatch latch;
+
+        Barrier(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        void apply(Shard shard) {
+            latch.countDown();
+        }
+    }
+
+    private static final class Stop extends Command {
+        static final Stop INSTANCE = new Stop();
+
+        @Override
+        void apply(Shard shard) {
+            shard.stopped = true;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package Threads.ledger;
+
+import benchmark.LatencyHistogram;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives a {@link Ledger} from 1..64 producer threads and reports transfers/sec and submit-to-completion
+ * latency. Each producer keeps up to {@value #WINDOW} transfers in flight. A share of the transfers
+ * ({@code hotPercent}) has a hot account on one side, so a few shards get far more traffic than the rest.
+ * After each run the ledger is closed and checked: no balance below zero, and no money created or lost.
+ * <p>
+ * Usage: {@code java Threads.ledger.LedgerLoadGenerator [accounts] [shards] [millisPerRun] [hotAccounts] [hotPercent]}
+ * (defaults 1000000, number of cores, 2000, 16, 20).
+ */
+public class LedgerLoadGenerator {
+
+    private static final int WINDOW = 64;
+    private static final long INITIAL_BALANCE = 1_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int shards = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long millis = args.length > 2 ? Long.parseLong(args[2]) : 2000;
+        int hotAccounts = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+        int hotPercent = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+
+        System.out.printf("%-10s %14s %12s %12s %12s %12s%n",
+                "producers", "transfers/sec", "p50 us", "p99 us", "max us", "rejected");
+        for (int producers = 1; producers <= 64; producers *= 2) {
+            run(producers, accounts, shards, millis, hotAccounts, hotPercent);
+        }
+    }
+
+    private static void run(int producerCount, int accounts, int shards, long millis, int hotAccounts, int hotPercent)
+            throws InterruptedException {
+        Ledger ledger = new Ledger(accounts, INITIAL_BALANCE, shards);
+        LatencyHistogram latency = new LatencyHistogram("transfer");
+        LongAdder rejected = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        Thread[] producers = new Thread[producerCount];
+        for (int p = 0; p < producerCount; p++) {
+            long seed = p;
+            producers[p] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                Semaphore inFlight = new Semaphore(WINDOW);
+                while (running.get()) {
+                    int from = pick(random, accounts, hotAccounts, hotPercent);
+                    int to = pick(random, accounts, hotAccounts, hotPercent);
+                    if (from == to) {
+                        continue;
+                    }
+                    inFlight.acquireUninterruptibly();
+                    long start = System.nanoTime();
+                    ledger.transfer(from, to, 1 + random.nextInt(100)).whenComplete((status, error) -> {
+                        latency.recordSince(start);
+                        if (status == TransferStatus.INSUFFICIENT_FUNDS) {
+                            rejected.increment();
+                        }
+                        inFlight.release();
+                    });
+                }
+                inFlight.acquireUninterruptibly(WINDOW); // wait for this producer's last transfers
+            });
+        }
+
+        long start = System.nanoTime();
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        Thread.sleep(millis);
+        running.set(false);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        ledger.close();
+
+        long expectedTotal = (long) accounts * INITIAL_BALANCE;
+        if (ledger.totalBalance() != expectedTotal || ledger.minimumBalance() < 0) {
+            throw new IllegalStateException("ledger invariant broken: total " + ledger.totalBalance()
+                    + " (expected " + expectedTotal + "), minimum " + ledger.minimumBalance());
+        }
+        System.out.printf("%-10d %14.0f %12.1f %12.1f %12.1f %12d%n", producerCount,
+                latency.count() * 1e9 / elapsed, latency.percentile(50) / 1e3, latency.percentile(99) / 1e3,
+                latency.max() / 1e3, rejected.sum());
+    }
+
+    private static int pick(SplittableRandom random, int accounts, int hotAccounts, int hotPercent) {
+        return random.nextInt(100) < hotPercent ? random.nextInt(hotAccounts) : random.nextInt(accounts);
+    }
+}
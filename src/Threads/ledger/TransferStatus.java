@@ -0,0 +1,6 @@
+package Threads.ledger;
+
+public enum TransferStatus {
+    COMPLETED,
+    INSUFFICIENT_FUNDS
+}
@@ -0,0 +1,107 @@
+package Threads.parking;
+
+import Threads.ParkingLotWithThreads;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Entry/exit pairs per second of {@link ParkingSpotAllocator} against the single-monitor
+ * {@link ParkingLotWithThreads}, with every thread parking and leaving in a loop.
+ * <ul>
+ *     <li>plenty: 4 floors of 100K spots (70% compact, 20% large, 10% EV), nobody ever waits</li>
+ *     <li>scarce: one floor with half as many spots as threads, so half the cars are always waiting</li>
+ * </ul>
+ * Cars ask for compact, large and EV spots in a 70/20/10 mix.
+ * <p>
+ * Usage: {@code java Threads.parking.ParkingBenchmark [millisPerRun] [threads...]} (defaults 1000, 8 32 128 256).
+ */
+public class ParkingBenchmark {
+
+    private static final SpotType[] TYPES = SpotType.values();
+
+    public static void main(String[] args) throws InterruptedException {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int[] threadCounts = args.length > 1 ? new int[args.length - 1] : new int[]{8, 32, 128, 256};
+        for (int i = 1; i < args.length; i++) {
+            threadCounts[i - 1] = Integer.parseInt(args[i]);
+        }
+
+        System.out.printf("%-8s %-10s %8s %16s%n", "lot", "allocator", "threads", "entries/sec");
+        for (int threads : threadCounts) {
+            for (boolean scarce : new boolean[]{false, true}) {
+                int[] perFloor = scarce ? split(Math.max(3, threads / 2)) : split(100_000);
+                int floors = scarce ? 1 : 4;
+                int totalSpots = floors * (perFloor[0] + perFloor[1] + perFloor[2]);
+                String lotName = scarce ? "scarce" : "plenty";
+
+                ParkingSpotAllocator allocator = new ParkingSpotAllocator(floors, perFloor);
+                double bitmapRate = run(threads, millis, random -> {
+                    Ticket ticket = allocator.park(pickType(random));
+                    allocator.leave(ticket);
+                });
+                int available = 0;
+                for (SpotType type : TYPES) {
+                    available += allocator.available(type);
+                }
+                if (available != totalSpots) {
+                    throw new IllegalStateException("lost spots: " + available + " of " + totalSpots + " free");
+                }
+                System.out.printf("%-8s %-10s %8d %16.0f%n", lotName, "bitmap", threads, bitmapRate);
+
+                ParkingLotWithThreads monitor = new ParkingLotWithThreads(totalSpots, false);
+                double monitorRate = run(threads, millis, random -> {
+                    monitor.enterParkingLot("car");
+                    monitor.exitParkingLot("car");
+                });
+                System.out.printf("%-8s %-10s %8d %16.0f%n", lotName, "monitor", threads, monitorRate);
+            }
+        }
+    }
+
+    private static double run(int threadCount, long millis, Car car) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder entries = new LongAdder();
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            long seed = t;
+            threads[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                try {
+                    while (running.get()) {
+                        car.parkAndLeave(random);
+                        entries.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(millis);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return entries.sum() * 1e9 / (System.nanoTime() - start);
+    }
+
+    private static int[] split(int spots) {
+        int large = Math.max(1, spots / 5);
+        int ev = Math.max(1, spots / 10);
+        return new int[]{Math.max(1, spots - large - ev), large, ev};
+    }
+
+    private static SpotType pickType(SplittableRandom random) {
+        int roll = random.nextInt(10);
+        return roll < 7 ? SpotType.COMPACT : roll < 9 ? SpotType.LARGE : SpotType.EV;
+    }
+
+    private interface Car {
+        void parkAndLeave(SplittableRandom random) throws InterruptedException;
+    }
+}
@@ -0,0 +1,238 @@
+package Threads.parking;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free replacement for {@link Threads.ParkingLotWithThreads} for large lots with typed spots.
+ * <p>
+ * Each floor has one bitmap per {@link SpotType} (a set bit is an occupied spot) and a free-spot counter
+ * per type. A car first reserves a spot by decrementing the counter of some floor, starting at a random
+ * floor to spread the load, then claims a clear bit on that floor with a CAS, starting at a random word.
+ * The reservation guarantees a clear bit exists, so the claim never fails. Leaving clears the bit and
+ * increments the counter.
+ * <p>
+ * When no spot of its type is free, a car joins a FIFO queue for that type and parks. Cars never jump
+ * that queue: a new car only claims directly when nobody is waiting. Each release is handed to the
+ * longest-waiting car, which is unparked with its spot already claimed.
+ */
+public class ParkingSpotAllocator {
+
+    private static final int WAITING = 0;
+    private static final int FULFILLED = 1;
+    private static final int CANCELLED = 2;
+
+    private static final SpotType[] TYPES = SpotType.values();
+
+    // [floor][type]
+    private final AtomicLongArray[][] occupied;
+    private final AtomicInteger[][] free;
+    private final ConcurrentLinkedQueue<Waiter>[] waiters;
+    private final int floors;
+
+    /**
+     * @param spotsPerFloor number of spots of each type on every floor, indexed by {@link SpotType#ordinal()}
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ParkingSpotAllocator(int floors, int... spotsPerFloor) {
+        if (floors < 1 || spotsPerFloor.length != TYPES.length) {
+            throw new IllegalArgumentException("need at least one floor and a spot count for each of " + TYPES.length + " types");
+        }
+        this.floors = floors;
+        occupied = new AtomicLongArray[floors][TYPES.length];
+        free = new AtomicInteger[floors][TYPES.length];
+        for (int f = 0; f < floors; f++) {
+            for (int t = 0; t < TYPES.length; t++) {
+                int spots = spotsPerFloor[t];
+                AtomicLongArray bits = new AtomicLongArray(Math.max(1, (spots + 63) >>> 6));
+                if ((spots & 63) != 0) {
+                    bits.set(spots >>> 6, -1L << (spots & 63)); // bits past the last spot count as occupied
+                } else if (spots == 0) {
+                    bits.set(0, -1L);
+                }
+                occupied[f][t] = bits;
+                free[f][t] = new AtomicInteger(spots);
+            }
+        }
+        waiters = new ConcurrentLinkedQueue[TYPES.length];
+        for (int t = 0; t < TYPES.length; t++) {
+            waiters[t] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        ParkingSpotAllocator lot = new ParkingSpotAllocator(2, 1, 1, 1);
+        Ticket first = lot.park(SpotType.EV);
+        Ticket second = lot.park(SpotType.EV);
+        System.out.println("Parked: " + first + ", " + second); // two EV spots, one per floor
+        System.out.println("Free EV spots: " + lot.available(SpotType.EV)); // Expected: 0
+
+        Thread waitingCar = new Thread(() -> {
+            try {
+                System.out.println("Waiting car got " + lot.park(SpotType.EV)); // the spot freed below
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waitingCar.start();
+        Thread.sleep(100);
+        lot.leave(first);
+        waitingCar.join();
+        System.out.println("Free EV spots: " + lot.available(SpotType.EV)); // Expected: 0 (handed over)
+    }
+
+    /**
+     * Claims a spot of the given type, waiting in line if none is free.
+     */
+    public Ticket park(SpotType type) throws InterruptedException {
+        ConcurrentLinkedQueue<Waiter> queue = waiters[type.ordinal()];
+        if (queue.isEmpty()) {
+            Ticket ticket = tryClaim(type);
+            if (ticket != null) {
+                return ticket;
+            }
+        }
+
+        Waiter waiter = new Waiter(Thread.currentThread());
+        queue.add(waiter);
+        // a spot may have been released between the failed claim and joining the queue
+        dispatch(type);
+        // the state turns FULFILLED just before the ticket is set, so wait for the ticket itself
+        boolean interrupted = false;
+        while (waiter.ticket == null) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                if (waiter.state.compareAndSet(WAITING, CANCELLED)) {
+                    throw new InterruptedException();
+                }
+                interrupted = true; // a spot is already on its way, take it and keep the interrupt
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return waiter.ticket;
+    }
+
+    /**
+     * Claims a free spot without waiting, or returns null. Does not take a spot that a waiting car is
+     * in line for.
+     */
+    public Ticket tryPark(SpotType type) {
+        return waiters[type.ordinal()].isEmpty() ? tryClaim(type) : null;
+    }
+
+    public void leave(Ticket ticket) {
+        returnSpot(ticket);
+        dispatch(ticket.getType());
+    }
+
+    public int available(SpotType type) {
+        int available = 0;
+        for (int f = 0; f < floors; f++) {
+            available += free[f][type.ordinal()].get();
+        }
+        return available;
+    }
+
+    /**
+     * Hands free spots to waiting cars, oldest first, until no car waits or no spot is free.
+     * Both leaving cars and newly queued cars call it after publishing their own change (a freed spot,
+     * or a queue entry), so at least one of them sees the other's.
+     */
+    private void dispatch(SpotType type) {
+        ConcurrentLinkedQueue<Waiter> queue = waiters[type.ordinal()];
+        while (!queue.isEmpty()) {
+            Ticket ticket = tryClaim(type);
+            if (ticket == null) {
+                return; // the next leave() dispatches again
+            }
+            Waiter waiter;
+            while ((waiter = queue.poll()) != null && !waiter.state.compareAndSet(WAITING, FULFILLED)) {
+                // cancelled by an interrupt, try the next car
+            }
+            if (waiter == null) {
+                returnSpot(ticket); // another dispatcher served everyone; the loop re-checks the queue
+            } else {
+                waiter.ticket = ticket;
+                LockSupport.unpark(waiter.thread);
+            }
+        }
+    }
+
+    private Ticket tryClaim(SpotType type) {
+        int t = type.ordinal();
+        int start = floors == 1 ? 0 : ThreadLocalRandom.current().nextInt(floors);
+        for (int i = 0; i < floors; i++) {
+            int floor = (start + i) % floors;
+            if (reserve(free[floor][t])) {
+                return new Ticket(floor, type, claimBit(occupied[floor][t]));
+            }
+        }
+        return null;
+    }
+
+    private static boolean reserve(AtomicInteger counter) {
+        int current;
+        while ((current = counter.get()) > 0) {
+            if (counter.compareAndSet(current, current - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Only called after a successful {@link #reserve}, so some bit is clear or about to be.
+     */
+    private static int claimBit(AtomicLongArray bits) {
+        int words = bits.length();
+        int word = words == 1 ? 0 : ThreadLocalRandom.current().nextInt(words);
+        while (true) {
+            for (int i = 0; i < words; i++, word = word + 1 == words ? 0 : word + 1) {
+                long current = bits.get(word);
+                while (current != -1L) {
+                    int bit = Long.numberOfTrailingZeros(~current);
+                    long witness = bits.compareAndExchange(word, current, current | (1L << bit));
+                    if (witness == current) {
+                        return (word << 6) | bit;
+                    }
+                    current = witness;
+                }
+            }
+        }
+    }
+
+    private void returnSpot(Ticket ticket) {
+        int t = ticket.getType().ordinal();
+        AtomicLongArray bits = occupied[ticket.getFloor()][t];
+        int word = ticket.getSpot() >>> 6;
+        long mask = 1L << ticket.getSpot();
+        long current = bits.get(word);
+        while (true) {
+            if ((current & mask) == 0) {
+                throw new IllegalStateException("spot already free: " + ticket);
+            }
+            long witness = bits.compareAndExchange(word, current, current & ~mask);
+            if (witness == current) {
+                break;
+            }
+            current = witness;
+        }
+        free[ticket.getFloor()][t].incrementAndGet();
+    }
+
+    private static final class Waiter {
+        final Thread thread;
+        final AtomicInteger state = new AtomicInteger(WAITING);
+        // set by the dispatcher that won the WAITING -> FULFILLED transition
+        volatile Ticket ticket;
+
+        Waiter(Thread thread) {
+            this.thread = thread;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package Threads.parking;
+
+public enum SpotType {
+    COMPACT,
+    LARGE,
+    EV
+}
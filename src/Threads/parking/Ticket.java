@@ -0,0 +1,33 @@
+package Threads.parking;
+
+/**
+ * A claimed spot. Hand it back to {@link ParkingSpotAllocator#leave(Ticket)} exactly once.
+ */
+public final class Ticket {
+    private final int floor;
+    private final SpotType type;
+    private final int spot;
+
+    Ticket(int floor, SpotType type, int spot) {
+        this.floor = floor;
+        this.type = type;
+        this.spot = spot;
+    }
+
+    public int getFloor() {
+        return floor;
+    }
+
+    public SpotType getType() {
+        return type;
+    }
+
+    public int getSpot() {
+        return spot;
+    }
+
+    @Override
+    public String toString() {
+        return "floor " + floor + " " + type + " #" + spot;
+    }
+}
@@ -0,0 +1,44 @@
+package Threads.race;
+
+import Threads.RaceSimulation;
+
+/**
+ * Wall time of a race in {@link RaceEngine} against the thread-per-racer {@link RaceSimulation}, and
+ * simulated steps per second of the engine. Each engine race runs twice, on one thread and on
+ * {@code threads} threads, to show that the winner does not change. The thread version is only run up to
+ * {@code maxThreadRacers} racers, since it needs one platform thread for each.
+ * <p>
+ * Usage: {@code java Threads.race.RaceBenchmark [maxRacers] [threads] [seed] [maxThreadRacers]}
+ * (defaults 1000000, 4, 42, 1000)
+ */
+public class RaceBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxRacers = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        int maxThreadRacers = args.length > 3 ? Integer.parseInt(args[3]) : 1_000;
+
+        System.out.printf("%-18s %10s %8s %12s %14s %16s %12s%n",
+                "engine", "racers", "threads", "winner", "steps", "steps/sec", "wall ms");
+        for (int racers = 10; racers <= maxRacers; racers *= 10) {
+            if (racers <= maxThreadRacers) {
+                long start = System.nanoTime();
+                String winner = RaceSimulation.race(racers, 0, false);
+                System.out.printf("%-18s %10d %8d %12s %14s %16s %12.1f%n", "thread-per-racer", racers, racers,
+                        winner, "-", "-", (System.nanoTime() - start) / 1e6);
+            }
+            RaceEngine engine = new RaceEngine(racers, RaceSimulation.race_trace_distance, seed);
+            RaceEngine.Result single = engine.run(1);
+            RaceEngine.Result sharded = engine.run(threads);
+            for (RaceEngine.Result result : new RaceEngine.Result[]{single, sharded}) {
+                System.out.printf("%-18s %10d %8d %12s %14d %16.0f %12.1f%n", "discrete-event", racers,
+                        result == single ? 1 : threads, "racer-" + (result.getWinner() + 1), result.getSteps(),
+                        result.stepsPerSecond(), result.getWallNanos() / 1e6);
+            }
+            if (single.getWinner() != sharded.getWinner() || single.getFinishTime() != sharded.getFinishTime()) {
+                throw new IllegalStateException("winner depends on the thread count: " + single + " vs " + sharded);
+            }
+        }
+    }
+}
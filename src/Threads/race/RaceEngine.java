@@ -0,0 +1,199 @@
+package Threads.race;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link Threads.RaceSimulation} as a discrete-event simulation in virtual time, for millions of racers
+ * on a few threads.
+ * <p>
+ * The rules are the same: at each step a racer moves 0-9 units and then rests as many milliseconds; the
+ * first one past the finish line, once it has rested, wins. Here the rest is not slept. Each racer has a
+ * next-event time, and a shard thread repeatedly takes the earliest event from a binary heap of its
+ * racers, runs that step and schedules the next one. Heap entries are single {@code long}s,
+ * {@code time << 32 | racer}, so the heap is one primitive array and ties go to the lower racer.
+ * <p>
+ * Every racer draws from its own {@link SplittableRandom}, seeded from the race seed and its number, so
+ * its steps do not depend on which thread runs it or when. The winner is the racer with the lowest
+ * (finish time, number), so a seed always produces the same winner, whatever the thread count. Shards
+ * share the best finish found so far and stop as soon as their earliest event cannot beat it; the
+ * number of steps simulated therefore varies a little between runs, the result does not.
+ */
+public class RaceEngine {
+
+    private final int racers;
+    private final int distance;
+    private final long seed;
+
+    public RaceEngine(int racers, int distance, long seed) {
+        if (racers < 1 || distance < 1) {
+            throw new IllegalArgumentException("need at least one racer and a positive distance");
+        }
+        this.racers = racers;
+        this.distance = distance;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        RaceEngine engine = new RaceEngine(1_000_000, 100, 42);
+        Result onOneThread = engine.run(1);
+        Result onFourThreads = engine.run(4);
+        System.out.println("1 thread:  " + onOneThread);
+        System.out.println("4 threads: " + onFourThreads);
+        System.out.println("Same winner: " + (onOneThread.getWinner() == onFourThreads.getWinner())); // Expected: true
+    }
+
+    /**
+     * Runs the race on {@code threads} shard threads, each owning a contiguous range of racers.
+     */
+    public Result run(int threads) throws InterruptedException {
+        int shards = Math.max(1, Math.min(threads, racers));
+        AtomicLong best = new AtomicLong(Long.MAX_VALUE);
+        LongAdder steps = new LongAdder();
+        Thread[] workers = new Thread[shards];
+        long start = System.nanoTime();
+        for (int s = 0; s < shards; s++) {
+            int first = (int) ((long) racers * s / shards);
+            int last = (int) ((long) racers * (s + 1) / shards);
+            workers[s] = new Thread(() -> steps.add(new Shard(first, last - first).run(best)), "race-shard-" + s);
+            workers[s].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        long winner = best.get();
+        return new Result((int) winner, winner >>> 32, steps.sum(), elapsed);
+    }
+
+    /**
+     * Seed of one racer's generator: the race seed and the racer number mixed with SplitMix64's finalizer.
+     */
+    static long racerSeed(long seed, int racer) {
+        long z = seed + (racer + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private final class Shard {
+        private final int firstRacer;
+        private final long[] heap;
+        private final int[] position;
+        private final SplittableRandom[] random;
+        private int size;
+
+        Shard(int firstRacer, int count) {
+            this.firstRacer = firstRacer;
+            this.heap = new long[count];
+            this.position = new int[count];
+            this.random = new SplittableRandom[count];
+            for (int i = 0; i < count; i++) {
+                heap[i] = i; // everyone starts at time 0; in racer order this is already a valid heap
+                random[i] = new SplittableRandom(racerSeed(seed, firstRacer + i));
+            }
+            this.size = count;
+        }
+
+        /**
+         * Simulates until no racer of this shard can beat {@code best}, and returns the steps it ran.
+         */
+        long run(AtomicLong best) {
+            long steps = 0;
+            while (size > 0) {
+                long event = heap[0];
+                long time = event >>> 32;
+                int local = (int) event;
+                // a racer never finishes before its next event, so neither this one nor anyone after it wins
+                if ((time << 32 | (firstRacer + local)) >= best.get()) {
+                    break;
+                }
+                int step = random[local].nextInt(10);
+                steps++;
+                position[local] += step;
+                long next = time + step;
+                if (position[local] >= distance) {
+                    offer(best, next << 32 | (firstRacer + local));
+                    heap[0] = heap[--size];
+                } else {
+                    heap[0] = next << 32 | local;
+                }
+                siftDown();
+            }
+            return steps;
+        }
+
+        private void offer(AtomicLong best, long finish) {
+            long current;
+            while (finish < (current = best.get()) && !best.compareAndSet(current, finish)) {
+                // another shard improved it first, compare again
+            }
+        }
+
+        private void siftDown() {
+            long[] heap = this.heap;
+            int i = 0;
+            long value = heap[0];
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (value <= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = value;
+        }
+    }
+
+    public static final class Result {
+        private final int winner;
+        private final long finishTime;
+        private final long steps;
+        private final long wallNanos;
+
+        Result(int winner, long finishTime, long steps, long wallNanos) {
+            this.winner = winner;
+            this.finishTime = finishTime;
+            this.steps = steps;
+            this.wallNanos = wallNanos;
+        }
+
+        /**
+         * Winning racer, numbered from 0.
+         */
+        public int getWinner() {
+            return winner;
+        }
+
+        /**
+         * Virtual time at which the winner finished, in simulated milliseconds.
+         */
+        public long getFinishTime() {
+            return finishTime;
+        }
+
+        public long getSteps() {
+            return steps;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        public double stepsPerSecond() {
+            return steps * 1e9 / wallNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("racer-%d won at %d ms virtual time; %d steps in %.1f ms wall (%.0f steps/s)",
+                    winner + 1, finishTime, steps, wallNanos / 1e6, stepsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package Threads.semaphore;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Semaphore whose permit count follows the backend it protects, for the places that hard-code
+ * {@code new Semaphore(n)}.
+ * <p>
+ * {@link #acquire()} and {@link #release()} work as on a {@link java.util.concurrent.Semaphore}. The
+ * limiter times every call from acquire to release on the calling thread and hands the latency to its
+ * {@link LimitAlgorithm}, which raises the limit while latency stays flat and lowers it once calls
+ * queue up in the backend. A call that failed or timed out is released with {@link #releaseDropped()},
+ * which every algorithm (except FIXED) treats as a sign of overload.
+ * <p>
+ * Callers never wait longer than {@code maxQueueWait}: past that deadline {@code acquire} throws
+ * {@link RejectedExecutionException}. If the wait can already be predicted to miss the deadline (the
+ * callers queued ahead of it, divided by the limit, times the average latency), it throws at once,
+ * so an overloaded service sheds load without holding threads.
+ * <p>
+ * Like a non-fair semaphore, a new caller may take a permit that just became free before a waiting
+ * caller wakes up. A thread holds one permit at a time; latency is only measured when the same thread
+ * acquires and releases.
+ */
+public class AdaptiveLimiter {
+
+    private final LimitAlgorithm.Limit algorithm;
+    private final int maxLimit;
+    private final long maxQueueWaitNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitFreed = lock.newCondition();
+    private final ThreadLocal<long[]> acquiredAt = ThreadLocal.withInitial(() -> new long[1]);
+    private final LongAdder rejected = new LongAdder();
+
+    // guarded by lock
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private double averageRtt;
+
+    public AdaptiveLimiter(LimitAlgorithm algorithm, int initialLimit, int maxLimit, long maxQueueWaitMillis) {
+        if (initialLimit < 1 || maxLimit < initialLimit || maxQueueWaitMillis < 0) {
+            throw new IllegalArgumentException("need 1 <= initialLimit <= maxLimit and a non-negative queue wait");
+        }
+        this.algorithm = algorithm.newLimit();
+        this.limit = initialLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueWaitMillis);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(LimitAlgorithm.AIMD, 2, 100, 50);
+        for (int i = 0; i < 200; i++) {
+            limiter.acquire();
+            Thread.sleep(1);
+            limiter.release();
+        }
+        System.out.println("Limit after 200 fast calls: " + limiter.getLimit()); // Expected: 2, one call at a time never fills half of a bigger limit
+
+        limiter.acquire();
+        limiter.acquire();
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+            } catch (RejectedExecutionException e) {
+                System.out.println("Third caller: " + e.getMessage()); // Expected: rejected after 50 ms
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        waiter.join();
+        System.out.println("Rejected: " + limiter.getRejected()); // Expected: 1
+    }
+
+    /**
+     * Takes a permit, waiting at most {@code maxQueueWait}.
+     *
+     * @throws RejectedExecutionException if no permit is free by then, or if the wait is predicted to be longer
+     */
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (inFlight >= currentLimit()) {
+                if (averageRtt > 0 && (waiting + 1) / (double) currentLimit() * averageRtt > maxQueueWaitNanos) {
+                    throw reject("queue wait would exceed " + TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos) + " ms");
+                }
+                long remaining = maxQueueWaitNanos;
+                waiting++;
+                try {
+                    while (inFlight >= currentLimit()) {
+                        if (remaining <= 0) {
+                            throw reject("no permit within " + TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos) + " ms");
+                        }
+                        remaining = permitFreed.awaitNanos(remaining);
+                    }
+                } finally {
+                    waiting--;
+                }
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+        acquiredAt.get()[0] = System.nanoTime();
+    }
+
+    /**
+     * Takes a permit only if one is free right now.
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight >= currentLimit()) {
+                return false;
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+        acquiredAt.get()[0] = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Returns the permit of a call that succeeded.
+     */
+    public void release() {
+        release(false);
+    }
+
+    /**
+     * Returns the permit of a call that failed or timed out, so the limit goes down.
+     */
+    public void releaseDropped() {
+        release(true);
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private void release(boolean dropped) {
+        long[] start = acquiredAt.get();
+        long rtt = start[0] == 0 ? -1 : System.nanoTime() - start[0];
+        start[0] = 0;
+
+        lock.lock();
+        try {
+            if (inFlight == 0) {
+                throw new IllegalStateException("release without acquire");
+            }
+            if (rtt >= 0) {
+                limit = Math.max(1, Math.min(maxLimit, algorithm.update(limit, rtt, inFlight, dropped)));
+                averageRtt = averageRtt == 0 ? rtt : averageRtt + (rtt - averageRtt) / 16;
+            }
+            inFlight--;
+            for (int free = Math.min(currentLimit() - inFlight, waiting); free > 0; free--) {
+                permitFreed.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private RejectedExecutionException reject(String reason) {
+        rejected.increment();
+        return new RejectedExecutionException(reason);
+    }
+}
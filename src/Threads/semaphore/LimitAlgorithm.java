@@ -0,0 +1,146 @@
+package Threads.semaphore;
+
+/**
+ * How an {@link AdaptiveLimiter} resizes its permit count from the latency (RTT) of finished calls.
+ * All of them only grow the limit while at least half of it is in use, so an idle service does not
+ * collect permits it never tested.
+ * <ul>
+ *     <li>FIXED: never changes the limit; a plain {@link java.util.concurrent.Semaphore} with deadlines.</li>
+ *     <li>AIMD: additive increase, multiplicative decrease, as TCP does. The limit grows by about one per
+ *     round trip while calls are fast and shrinks by 10% (at most once per round trip) when a call was
+ *     dropped or took more than twice the no-load RTT.</li>
+ *     <li>GRADIENT: compares twice the no-load RTT with the latest sample. Their ratio (capped to 0.5..1)
+ *     scales the limit down as latency rises, and a headroom of sqrt(limit) lets it probe upwards.
+ *     The result is smoothed over a round trip, so one slow call does not halve the limit.</li>
+ *     <li>VEGAS: estimates the backend's queue as {@code limit * (1 - noLoadRtt / rtt)} and steers it
+ *     between 3 and 6 times log10(limit), as TCP Vegas does with packets in flight.</li>
+ * </ul>
+ * The no-load RTT is the lowest RTT of the current and the previous window of {@value #RTT_WINDOW}
+ * samples, so it follows a backend that got permanently slower instead of keeping a stale minimum.
+ */
+public enum LimitAlgorithm {
+    FIXED,
+    AIMD,
+    GRADIENT,
+    VEGAS;
+
+    static final int RTT_WINDOW = 1_000;
+
+    Limit newLimit() {
+        switch (this) {
+            case FIXED:
+                return (limit, rttNanos, inFlight, dropped) -> limit;
+            case AIMD:
+                return new Aimd();
+            case GRADIENT:
+                return new Gradient();
+            default:
+                return new Vegas();
+        }
+    }
+
+    /**
+     * Per-limiter state of an algorithm. Called under the limiter's lock, one sample at a time.
+     */
+    interface Limit {
+        /**
+         * @param limit    the current limit
+         * @param inFlight calls in flight when this one finished, including it
+         * @param dropped  true if the call failed or timed out
+         * @return the new limit, before the limiter clamps it to its bounds
+         */
+        double update(double limit, long rttNanos, int inFlight, boolean dropped);
+    }
+
+    private static final class Aimd implements Limit {
+        private static final double TOLERANCE = 2.0;
+        private static final double BACKOFF = 0.9;
+
+        private final WindowedMinimum noLoadRtt = new WindowedMinimum();
+        private int samplesSinceDecrease;
+
+        @Override
+        public double update(double limit, long rttNanos, int inFlight, boolean dropped) {
+            noLoadRtt.add(rttNanos);
+            samplesSinceDecrease++;
+            if (dropped || rttNanos > TOLERANCE * noLoadRtt.get()) {
+                // every call of one overloaded round trip reports it; back off once for all of them
+                if (samplesSinceDecrease < limit) {
+                    return limit;
+                }
+                samplesSinceDecrease = 0;
+                return limit * BACKOFF;
+            }
+            // +1/limit per sample is +1 per round trip, since about limit calls finish per round trip
+            return inFlight * 2 >= limit ? limit + 1.0 / limit : limit;
+        }
+    }
+
+    private static final class Gradient implements Limit {
+        private static final double TOLERANCE = 2.0;
+        private static final double SMOOTHING = 0.2;
+
+        private final WindowedMinimum noLoadRtt = new WindowedMinimum();
+
+        @Override
+        public double update(double limit, long rttNanos, int inFlight, boolean dropped) {
+            noLoadRtt.add(rttNanos);
+            if (!dropped && inFlight * 2 < limit) {
+                return limit;
+            }
+            double gradient = dropped ? 0.5 : Math.max(0.5, Math.min(1.0, TOLERANCE * noLoadRtt.get() / rttNanos));
+            double target = limit * gradient + Math.sqrt(limit);
+            // smoothing per sample is divided by the limit, so one round trip of samples moves it by SMOOTHING
+            double smoothing = SMOOTHING / limit;
+            return limit * (1 - smoothing) + target * smoothing;
+        }
+    }
+
+    private static final class Vegas implements Limit {
+        private final WindowedMinimum noLoadRtt = new WindowedMinimum();
+
+        @Override
+        public double update(double limit, long rttNanos, int inFlight, boolean dropped) {
+            noLoadRtt.add(rttNanos);
+            double log = Math.max(1, Math.log10(limit));
+            // steps are divided by the limit, so a whole round trip of samples moves it by one Vegas step
+            if (dropped) {
+                return limit - 2 * log / limit;
+            }
+            if (inFlight * 2 < limit) {
+                return limit;
+            }
+            double queue = limit * (1 - (double) noLoadRtt.get() / rttNanos);
+            if (queue <= log) {
+                return limit + 6 * log / limit;
+            } else if (queue < 3 * log) {
+                return limit + log / limit;
+            } else if (queue > 6 * log) {
+                return limit - log / limit;
+            }
+            return limit;
+        }
+    }
+
+    /**
+     * Minimum over the current and the previous window of samples.
+     */
+    private static final class WindowedMinimum {
+        private long current = Long.MAX_VALUE;
+        private long previous = Long.MAX_VALUE;
+        private int samples;
+
+        void add(long value) {
+            current = Math.min(current, value);
+            if (++samples == RTT_WINDOW) {
+                previous = current;
+                current = Long.MAX_VALUE;
+                samples = 0;
+            }
+        }
+
+        long get() {
+            return Math.min(current, previous);
+        }
+    }
+}
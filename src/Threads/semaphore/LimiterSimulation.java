@@ -0,0 +1,144 @@
+package Threads.semaphore;
+
+import benchmark.LatencyHistogram;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs a closed-loop client population against a stand-in backend, once without any limit and once
+ * behind an {@link AdaptiveLimiter} per {@link LimitAlgorithm}, and reports for each:
+ * <ul>
+ *     <li>goodput: calls per second that finished within the client timeout, queue wait included</li>
+ *     <li>late and rejected calls per second</li>
+ *     <li>p50/p99 latency of the good calls, and the limit the algorithm ended up with</li>
+ * </ul>
+ * The backend serves {@code capacity} calls at {@code baseLatency}. Beyond that, latency grows as
+ * {@code baseLatency * (inFlight / capacity) ^ exponent}, so with an exponent above 1 its throughput
+ * drops as it gets more overloaded, as a real service thrashing on locks or memory does. A rejected
+ * client backs off for one base latency before trying again.
+ * <p>
+ * Usage: {@code java Threads.semaphore.LimiterSimulation [millisPerRun] [clients] [capacity] [baseLatencyMillis]
+ * [exponent] [timeoutMillis] [initialLimit]} (defaults 5000, 200, 20, 10, 2.0, 100, 5)
+ */
+public class LimiterSimulation {
+
+    public static void main(String[] args) throws InterruptedException {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 5000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long baseLatencyMillis = args.length > 3 ? Long.parseLong(args[3]) : 10;
+        double exponent = args.length > 4 ? Double.parseDouble(args[4]) : 2.0;
+        long timeoutMillis = args.length > 5 ? Long.parseLong(args[5]) : 100;
+        int initialLimit = args.length > 6 ? Integer.parseInt(args[6]) : 5;
+
+        Backend backend = new Backend(capacity, baseLatencyMillis, exponent);
+        System.out.printf("%d clients, backend capacity %d at %d ms, exponent %.1f, timeout %d ms%n",
+                clients, capacity, baseLatencyMillis, exponent, timeoutMillis);
+        System.out.printf("%-10s %12s %10s %12s %10s %10s %7s%n",
+                "limiter", "goodput/s", "late/s", "rejected/s", "p50 ms", "p99 ms", "limit");
+        print("none", run(null, backend, clients, millis, timeoutMillis, baseLatencyMillis), millis, null);
+        for (LimitAlgorithm algorithm : LimitAlgorithm.values()) {
+            // callers may queue for half the timeout, which leaves the other half for the call itself
+            AdaptiveLimiter limiter = new AdaptiveLimiter(algorithm, initialLimit, clients, timeoutMillis / 2);
+            print(algorithm.toString(), run(limiter, backend, clients, millis, timeoutMillis, baseLatencyMillis), millis, limiter);
+        }
+    }
+
+    private static void print(String name, Outcome outcome, long millis, AdaptiveLimiter limiter) {
+        double seconds = millis / 1000.0;
+        System.out.printf("%-10s %12.0f %10.0f %12.0f %10.1f %10.1f %7s%n", name,
+                outcome.good.sum() / seconds, outcome.late.sum() / seconds, outcome.rejected.sum() / seconds,
+                outcome.latency.percentile(50) / 1e6, outcome.latency.percentile(99) / 1e6,
+                limiter == null ? "-" : String.valueOf(limiter.getLimit()));
+    }
+
+    private static Outcome run(AdaptiveLimiter limiter, Backend backend, int clients, long millis, long timeoutMillis,
+                               long backoffMillis) throws InterruptedException {
+        Outcome outcome = new Outcome();
+        AtomicBoolean stop = new AtomicBoolean();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Thread[] threads = new Thread[clients];
+        for (int c = 0; c < clients; c++) {
+            threads[c] = new Thread(() -> {
+                try {
+                    while (!stop.get()) {
+                        long start = System.nanoTime();
+                        if (limiter != null) {
+                            try {
+                                limiter.acquire();
+                            } catch (RejectedExecutionException e) {
+                                outcome.rejected.increment();
+                                Thread.sleep(backoffMillis);
+                                continue;
+                            }
+                        }
+                        backend.call();
+                        long latency = System.nanoTime() - start;
+                        boolean good = latency <= timeoutNanos;
+                        if (limiter != null) {
+                            if (good) {
+                                limiter.release();
+                            } else {
+                                limiter.releaseDropped();
+                            }
+                        }
+                        if (good) {
+                            outcome.good.increment();
+                            outcome.latency.record(latency);
+                        } else {
+                            outcome.late.increment();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "client-" + c);
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(millis);
+        stop.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return outcome;
+    }
+
+    private static final class Outcome {
+        final LongAdder good = new LongAdder();
+        final LongAdder late = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram("good calls");
+    }
+
+    /**
+     * Stand-in service whose latency depends on how many calls it is serving.
+     */
+    static final class Backend {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final int capacity;
+        private final long baseLatencyNanos;
+        private final double exponent;
+
+        Backend(int capacity, long baseLatencyMillis, double exponent) {
+            this.capacity = capacity;
+            this.baseLatencyNanos = TimeUnit.MILLISECONDS.toNanos(baseLatencyMillis);
+            this.exponent = exponent;
+        }
+
+        void call() throws InterruptedException {
+            int load = inFlight.incrementAndGet();
+            try {
+                double overload = Math.max(1.0, (double) load / capacity);
+                TimeUnit.NANOSECONDS.sleep((long) (baseLatencyNanos * Math.pow(overload, exponent)));
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -1,19 +1,30 @@
 package Threads.semaphore;
 
-import java.util.concurrent.Semaphore;
+import Threads.executorService.ExecutionMode;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 class Worker implements Runnable {
-    private final Semaphore semaphore;
+    private final AdaptiveLimiter limiter;
 
-    public Worker(Semaphore semaphore) {
-        this.semaphore = semaphore;
+    public Worker(AdaptiveLimiter limiter) {
+        this.limiter = limiter;
     }
 
     @Override
     public void run() {
+        System.out.println(Thread.currentThread().getName() + " waiting for permit...");
+        try {
+            limiter.acquire(); // take a permit
+        } catch (RejectedExecutionException e) {
+            System.out.println(Thread.currentThread().getName() + " gave up: " + e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
         try {
-            System.out.println(Thread.currentThread().getName() + " waiting for permit...");
-            semaphore.acquire(); // take a permit
             System.out.println(Thread.currentThread().getName() + " got permit. Working...");
 
             Thread.sleep(2000); // simulate work
@@ -22,17 +33,23 @@ class Worker implements Runnable {
         } catch (InterruptedException e) {
             e.printStackTrace();
         } finally {
-            semaphore.release(); // give back permit
+            limiter.release(); // give back permit
         }
     }
 }
 
+/**
+ * Usage: {@code java Threads.semaphore.SemaphoreDemo [platform|fixed_pool|virtual]} (default platform).
+ */
 public class SemaphoreDemo {
     public static void main(String[] args) {
-        Semaphore semaphore = new Semaphore(2); // only 2 permits at a time
+        // starts at 2 permits at a time and adapts to the latency of the work; waits up to 10 s for a permit
+        AdaptiveLimiter limiter = new AdaptiveLimiter(LimitAlgorithm.AIMD, 2, 5, 10_000);
+        ExecutorService workers = ExecutionMode.fromArgs(args, ExecutionMode.PLATFORM).newExecutor();
 
         for (int i = 1; i <= 5; i++) {
-            new Thread(new Worker(semaphore), "Thread-" + i).start();
+            workers.submit(new Worker(limiter));
         }
+        workers.shutdown();
     }
 }
@@ -0,0 +1,82 @@
+package Threads.sequencer;
+
+import benchmark.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handoffs per second and handoff latency of a {@link RoundRobinSequencer} for every {@link WaitStrategy}
+ * at 2, 4, 8 and 16 parties (up to {@code maxParties}).
+ * <p>
+ * Each party does nothing in its turn but stamp the time and pass, so the numbers are the cost of the
+ * handoff itself. Latency is measured from just before {@code pass()} to the moment the next party's
+ * {@code awaitTurn} returns. Spinning strategies need a free core per party: with fewer cores, a
+ * handoff to a party that is not running waits for the scheduler, and their numbers collapse.
+ * <p>
+ * Usage: {@code java Threads.sequencer.HandoffBenchmark [millisPerRun] [maxParties]} (defaults 1000, 16)
+ */
+public class HandoffBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int maxParties = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+
+        System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-11s %8s %16s %12s %12s %12s%n", "strategy", "parties", "handoffs/sec", "p50 ns", "p99 ns", "max ns");
+        for (int parties = 2; parties <= maxParties; parties *= 2) {
+            for (WaitStrategy strategy : WaitStrategy.values()) {
+                LatencyHistogram latency = new LatencyHistogram(strategy + " x" + parties);
+                double handoffsPerSecond = run(strategy, parties, millis, latency);
+                System.out.printf("%-11s %8d %16.0f %12d %12d %12d%n", strategy, parties, handoffsPerSecond,
+                        latency.percentile(50), latency.percentile(99), latency.max());
+            }
+        }
+    }
+
+    private static double run(WaitStrategy strategy, int parties, long millis, LatencyHistogram latency)
+            throws InterruptedException {
+        RoundRobinSequencer sequencer = new RoundRobinSequencer(parties, strategy);
+        // written by the party holding the turn and read by the next one; the volatile turn orders both
+        long[] passedAt = new long[1];
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread[] threads = new Thread[parties];
+        for (int p = 0; p < parties; p++) {
+            int party = p;
+            threads[p] = new Thread(() -> {
+                try {
+                    while (true) {
+                        sequencer.awaitTurn(party);
+                        long now = System.nanoTime();
+                        if (passedAt[0] != 0) {
+                            latency.record(now - passedAt[0]);
+                        }
+                        boolean done = stop.get();
+                        passedAt[0] = System.nanoTime();
+                        sequencer.pass(); // pass even when stopping, so every other party gets to see the flag
+                        if (done) {
+                            return;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, strategy + "-party-" + p);
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        long start = System.nanoTime();
+        Thread.sleep(millis);
+        long handoffs = sequencer.turn();
+        long elapsed = System.nanoTime() - start;
+        stop.set(true);
+        for (Thread thread : threads) {
+            thread.join(10_000);
+            if (thread.isAlive()) {
+                thread.interrupt();
+                thread.join();
+            }
+        }
+        return handoffs * 1e9 / elapsed;
+    }
+}
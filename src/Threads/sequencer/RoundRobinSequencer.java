@@ -0,0 +1,85 @@
+package Threads.sequencer;
+
+/**
+ * Lets N threads take turns in a fixed order: party 0, 1, ..., N-1, then 0 again. This is
+ * {@link Threads.PrintEvenAndEvenWithSynchonized} for any number of threads, with the waiting left to a
+ * {@link WaitStrategy}.
+ * <p>
+ * The turn is one counter. Party {@code p} owns every sequence number {@code s} with
+ * {@code s % parties == p}, so a party can work out its next turn from any value of the counter it has
+ * seen, and only the party holding the turn ever writes it. A turn looks like:
+ * <pre>
+ *   sequencer.awaitTurn(party);
+ *   ... work ...
+ *   sequencer.pass();
+ * </pre>
+ */
+public class RoundRobinSequencer {
+
+    private final int parties;
+    private final WaitStrategy.Waiter waiter;
+    private volatile long turn;
+
+    public RoundRobinSequencer(int parties, WaitStrategy strategy) {
+        if (parties < 1) {
+            throw new IllegalArgumentException("need at least one party");
+        }
+        this.parties = parties;
+        this.waiter = strategy.newWaiter(parties);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int parties = 3;
+        RoundRobinSequencer sequencer = new RoundRobinSequencer(parties, WaitStrategy.PARK);
+        Thread[] threads = new Thread[parties];
+        for (int p = 0; p < parties; p++) {
+            int party = p;
+            threads[p] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 3; i++) {
+                        long sequence = sequencer.awaitTurn(party);
+                        System.out.println("Thread " + party + ": " + (sequence + 1));
+                        sequencer.pass();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // Expected: 1 to 9 in order, printed by threads 0, 1, 2, 0, 1, 2, ...
+    }
+
+    /**
+     * Waits until it is {@code party}'s turn and returns the sequence number of that turn.
+     */
+    public long awaitTurn(int party) throws InterruptedException {
+        if (party < 0 || party >= parties) {
+            throw new IllegalArgumentException("no such party: " + party);
+        }
+        long current = turn;
+        long sequence = current + Math.floorMod(party - current, (long) parties);
+        waiter.await(this, party, sequence);
+        return sequence;
+    }
+
+    /**
+     * Hands the turn to the next party. Only the party holding the turn may call it.
+     */
+    public void pass() {
+        long next = turn + 1;
+        turn = next;
+        waiter.signal((int) (next % parties));
+    }
+
+    public long turn() {
+        return turn;
+    }
+
+    public int parties() {
+        return parties;
+    }
+}
@@ -0,0 +1,160 @@
+package Threads.sequencer;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * How a {@link RoundRobinSequencer} party waits for its turn. The cheaper the wake-up, the more CPU the
+ * waiting costs:
+ * <ul>
+ *     <li>BLOCKING: a lock and one condition per party, as in {@link Threads.PrintEvenAndEvenWithReentrantLock}
+ *     but signalling only the next party instead of everyone. Every handoff parks and unparks.</li>
+ *     <li>SPIN_YIELD: spins for a while, then keeps calling {@link Thread#yield()}. No signalling at all;
+ *     fast when the next party is already running, and gives the CPU away when it is not.</li>
+ *     <li>BUSY_SPIN: spins with {@link Thread#onSpinWait()} and never gives up the CPU. Lowest latency,
+ *     but only sensible with at least one free core per party.</li>
+ *     <li>PARK: {@link LockSupport#park} and a direct {@code unpark} of the next party's thread, without
+ *     the lock the BLOCKING strategy needs around every signal.</li>
+ * </ul>
+ */
+public enum WaitStrategy {
+    BLOCKING,
+    SPIN_YIELD,
+    BUSY_SPIN,
+    PARK;
+
+    static final int SPINS_BEFORE_YIELD = 1_000;
+
+    Waiter newWaiter(int parties) {
+        switch (this) {
+            case BLOCKING:
+                return new BlockingWaiter(parties);
+            case SPIN_YIELD:
+                return new SpinWaiter(true);
+            case BUSY_SPIN:
+                return new SpinWaiter(false);
+            default:
+                return new ParkWaiter(parties);
+        }
+    }
+
+    /**
+     * Per-sequencer state of a strategy.
+     */
+    interface Waiter {
+        /**
+         * Returns once the sequencer's turn has reached {@code sequence}.
+         */
+        void await(RoundRobinSequencer sequencer, int party, long sequence) throws InterruptedException;
+
+        /**
+         * Wakes {@code party}, called after the turn has moved to it.
+         */
+        void signal(int party);
+    }
+
+    private static final class BlockingWaiter implements Waiter {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition[] turns;
+
+        BlockingWaiter(int parties) {
+            turns = new Condition[parties];
+            for (int i = 0; i < parties; i++) {
+                turns[i] = lock.newCondition();
+            }
+        }
+
+        @Override
+        public void await(RoundRobinSequencer sequencer, int party, long sequence) throws InterruptedException {
+            if (sequencer.turn() >= sequence) {
+                return;
+            }
+            lock.lock();
+            try {
+                // the turn is re-read under the lock that signal() takes, so a handoff cannot slip in between
+                while (sequencer.turn() < sequence) {
+                    turns[party].await();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void signal(int party) {
+            lock.lock();
+            try {
+                turns[party].signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class SpinWaiter implements Waiter {
+        private final boolean yield;
+
+        SpinWaiter(boolean yield) {
+            this.yield = yield;
+        }
+
+        @Override
+        public void await(RoundRobinSequencer sequencer, int party, long sequence) throws InterruptedException {
+            int spins = 0;
+            while (sequencer.turn() < sequence) {
+                if (yield && spins >= SPINS_BEFORE_YIELD) {
+                    Thread.yield();
+                } else {
+                    spins++;
+                    Thread.onSpinWait();
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+
+        @Override
+        public void signal(int party) {
+            // the waiting party polls the turn itself
+        }
+    }
+
+    private static final class ParkWaiter implements Waiter {
+        private final AtomicReferenceArray<Thread> parked;
+
+        ParkWaiter(int parties) {
+            parked = new AtomicReferenceArray<>(parties);
+        }
+
+        @Override
+        public void await(RoundRobinSequencer sequencer, int party, long sequence) throws InterruptedException {
+            if (sequencer.turn() >= sequence) {
+                return;
+            }
+            // publish the thread before re-reading the turn; signal() writes the turn before reading the
+            // thread, so at least one side sees the other
+            parked.set(party, Thread.currentThread());
+            try {
+                while (sequencer.turn() < sequence) {
+                    LockSupport.park(sequencer);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            } finally {
+                parked.set(party, null);
+            }
+        }
+
+        @Override
+        public void signal(int party) {
+            Thread thread = parked.get(party);
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+}
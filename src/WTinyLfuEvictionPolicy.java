@@ -0,0 +1,101 @@
+/**
+ * Window TinyLFU: new entries land in a small LRU window (1% of the cache); entries pushed out of the
+ * window must win a frequency contest against the main region's eviction candidate to be admitted.
+ * The main region is a segmented LRU: entries start in probation and move to protected (80% of the
+ * main region) on their next hit. Frequencies come from a {@link FrequencySketch} that also counts misses,
+ * so a one-off scan cannot flush frequently used entries out of the main region.
+ */
+public class WTinyLfuEvictionPolicy<K, V> implements BoundedCustomHashMap.EvictionPolicy<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final int windowMaximum;
+    private final int protectedMaximum;
+    private final FrequencySketch sketch;
+
+    private final BoundedCustomHashMap.EntryList<K, V> window = new BoundedCustomHashMap.EntryList<>();
+    private final BoundedCustomHashMap.EntryList<K, V> probation = new BoundedCustomHashMap.EntryList<>();
+    private final BoundedCustomHashMap.EntryList<K, V> protectedList = new BoundedCustomHashMap.EntryList<>();
+
+    public WTinyLfuEvictionPolicy(int maximumSize) {
+        windowMaximum = Math.max(1, maximumSize / 100);
+        protectedMaximum = (int) ((maximumSize - windowMaximum) * 0.8);
+        sketch = new FrequencySketch(maximumSize);
+    }
+
+    @Override
+    public void onAccess(BoundedCustomHashMap.CacheEntry<K, V> entry) {
+        sketch.increment(entry.hash);
+        switch (entry.queue) {
+            case WINDOW:
+                window.moveToLast(entry);
+                break;
+            case PROBATION:
+                probation.unlink(entry);
+                entry.queue = PROTECTED;
+                protectedList.addLast(entry);
+                if (protectedList.size > protectedMaximum) {
+                    BoundedCustomHashMap.CacheEntry<K, V> demoted = protectedList.head;
+                    protectedList.unlink(demoted);
+                    demoted.queue = PROBATION;
+                    probation.addLast(demoted);
+                }
+                break;
+            default:
+                protectedList.moveToLast(entry);
+        }
+    }
+
+    @Override
+    public void onInsert(BoundedCustomHashMap.CacheEntry<K, V> entry) {
+        sketch.increment(entry.hash);
+        entry.queue = WINDOW;
+        window.addLast(entry);
+    }
+
+    @Override
+    public void onRemove(BoundedCustomHashMap.CacheEntry<K, V> entry) {
+        listOf(entry).unlink(entry);
+    }
+
+    @Override
+    public void onMiss(int hash) {
+        sketch.increment(hash);
+    }
+
+    @Override
+    public BoundedCustomHashMap.CacheEntry<K, V> victim() {
+        BoundedCustomHashMap.CacheEntry<K, V> mainVictim = probation.head != null ? probation.head : protectedList.head;
+
+        // the entry leaving the window becomes the candidate for admission into the main region
+        BoundedCustomHashMap.CacheEntry<K, V> candidate = null;
+        while (window.size > windowMaximum) {
+            candidate = window.head;
+            window.unlink(candidate);
+            candidate.queue = PROBATION;
+            probation.addLast(candidate);
+        }
+
+        if (candidate == null) {
+            return mainVictim != null ? mainVictim : window.head;
+        }
+        if (mainVictim == null) {
+            return candidate;
+        }
+        // admit the candidate only if it is requested more often than the entry it would displace
+        return sketch.frequency(candidate.hash) > sketch.frequency(mainVictim.hash) ? mainVictim : candidate;
+    }
+
+    private BoundedCustomHashMap.EntryList<K, V> listOf(BoundedCustomHashMap.CacheEntry<K, V> entry) {
+        switch (entry.queue) {
+            case WINDOW:
+                return window;
+            case PROBATION:
+                return probation;
+            default:
+                return protectedList;
+        }
+    }
+}
@@ -19,15 +19,16 @@ class TopKFrequent {
         //        });
         
 
+        // keep the k most frequent: once the heap grows past k, drop its least frequent entry
         for (Map.Entry<Integer, Integer> i : map.entrySet()) {
-            if (pq.size() >= k) {
+            pq.offer(i);
+            if (pq.size() > k) {
                 pq.poll();
             }
-            pq.offer(i);
         }
 
         int[] result = new int[k];
-        for (int i = k - 1; i >= 0; i++) {
+        for (int i = k - 1; i >= 0; i--) {
             result[i] = pq.poll().getKey();
         }
         return result;
@@ -46,7 +46,7 @@ public class Main {
     }
 
 
-    private static int findDepth(TreeNode root) {
+    static int findDepth(TreeNode root) {
 
         if (root == null) {
             return 0;
@@ -57,7 +57,7 @@ public class Main {
 
     }
 
-    private static void invertTree(TreeNode root) {
+    static void invertTree(TreeNode root) {
 
         if (root == null)
             return;
@@ -0,0 +1,236 @@
+package lld.designPattern.behavioural.chainOfResponsibiltyPattern;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+/**
+ * Logger that takes the printing off the caller's thread. Callers write the message, level, time and
+ * thread name into a slot of a preallocated ring buffer; one background thread drains the ring in
+ * batches and passes every message to the wrapped chain, keeping the original time and thread.
+ * <p>
+ * The ring is multi-producer, single-consumer. A caller claims a sequence number by CAS on the claim
+ * counter, fills the slot arrays, then publishes the slot by writing its sequence number into
+ * {@code published}. The consumer reads published slots in order and moves {@code consumed} forward
+ * once per batch. A sequence can be claimed only while it is less than {@code consumed + capacity}, so
+ * a caller never overwrites a slot the consumer has not read yet. When the ring is full, the
+ * {@link Backpressure} policy decides whether the caller waits or the message is dropped.
+ * <p>
+ * Messages below the minimum level are rejected on the caller's thread before they take a slot.
+ * {@link #close()} prints everything logged before it, then stops the consumer; like
+ * {@code Ledger.close()} it must not run while other threads are still logging.
+ * <p>
+ * If the chain throws for a message (e.g. its file appender failed), the message is counted in
+ * {@link #getFailed()} and handed to the error listener, and the consumer goes on with the next one.
+ */
+public class AsyncLogger implements Logger, AutoCloseable {
+
+    static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int MAX_BATCH = 256;
+    private static final int IDLE_SPINS = 100;
+    private static final long IDLE_PARK_NANOS = 100_000;
+
+    private final Logger chain;
+    private final Backpressure backpressure;
+    private final LogLevel keepLevel;
+    private final int mask;
+    private final LogLevel[] levels;
+    private final String[] messages;
+    private final long[] timestamps;
+    private final String[] threadNames;
+    // published[i] == sequence once the slot for that sequence has been filled
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Thread consumer;
+    private volatile long consumed;
+    private volatile LogLevel minLogLevel = LogLevel.INFO;
+    private volatile boolean closing;
+    private volatile BiConsumer<String, RuntimeException> errorListener =
+            (message, e) -> System.err.println("async-logger: could not log \"" + message + "\": " + e);
+
+    AsyncLogger(Logger chain, int capacity, Backpressure backpressure, LogLevel keepLevel) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.chain = chain;
+        this.backpressure = backpressure;
+        this.keepLevel = keepLevel;
+        this.mask = size - 1;
+        this.levels = new LogLevel[size];
+        this.messages = new String[size];
+        this.timestamps = new long[size];
+        this.threadNames = new String[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        chain.setMinLogLevel(minLogLevel);
+        this.consumer = new Thread(this::drain, "async-logger");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        AsyncLogger logger = LogManager.async(new DebugLogger(new InfoLogger(new ErrorLogger(null))));
+        Thread worker = new Thread(() -> logger.log(LogLevel.INFO, "logged from a worker"), "worker-1");
+        worker.start();
+        worker.join();
+        logger.log(LogLevel.ERROR, "This error message will be printed");
+        logger.log(LogLevel.DEBUG, "This debug message won't be printed");
+        logger.close(); // Expected: both messages, each with the thread that logged it
+    }
+
+    @Override
+    public void log(LogLevel level, String message) {
+        logAt(level, message, System.currentTimeMillis(), Thread.currentThread().getName());
+    }
+
+    @Override
+    public void logAt(LogLevel level, String message, long timestampMillis, String threadName) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        if (closing) {
+            throw new IllegalStateException("logger is closed");
+        }
+        long sequence = claim(level);
+        if (sequence < 0) {
+            dropped.increment();
+            return;
+        }
+        int slot = (int) sequence & mask;
+        levels[slot] = level;
+        messages[slot] = message;
+        timestamps[slot] = timestampMillis;
+        threadNames[slot] = threadName;
+        published.set(slot, sequence);
+    }
+
+    @Override
+    public boolean isEnabled(LogLevel level) {
+        return level.getLevel() >= minLogLevel.getLevel();
+    }
+
+    @Override
+    public void setMinLogLevel(LogLevel level) {
+        minLogLevel = level;
+        chain.setMinLogLevel(level);
+    }
+
+    @Override
+    public void setSink(LogSink sink) {
+        chain.setSink(sink);
+    }
+
+    /**
+     * Messages dropped because the ring was full.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Messages the chain threw for, each reported to the error listener.
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Replaces the default error listener, which prints the message and exception to {@code System.err}
+     * directly, not through the chain that failed. Runs on the consumer thread.
+     */
+    public void onError(BiConsumer<String, RuntimeException> listener) {
+        errorListener = listener;
+    }
+
+    /**
+     * Prints every message published so far, then stops the background thread. Logging afterwards throws.
+     * An interrupt does not cut this short; the thread's interrupt flag is set again before it returns.
+     */
+    @Override
+    public void close() {
+        closing = true;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                consumer.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the claimed sequence, or -1 if the message is to be dropped.
+     */
+    private long claim(LogLevel level) {
+        boolean mayDrop = backpressure == Backpressure.DROP
+                || (backpressure == Backpressure.DROP_BELOW_LEVEL && level.getLevel() < keepLevel.getLevel());
+        int waits = 0;
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - consumed > mask) {
+                if (mayDrop) {
+                    return -1;
+                }
+                // full: give the consumer the CPU, then back off a little more each time
+                if (++waits < 100) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS / 10);
+                }
+            } else if (claimed.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    private void report(String message, RuntimeException e) {
+        try {
+            errorListener.accept(message, e);
+        } catch (RuntimeException ignored) {
+            // a failing listener must not stop the consumer either
+        }
+    }
+
+    private void drain() {
+        long next = 0;
+        int idle = 0;
+        while (true) {
+            int batch = 0;
+            int slot;
+            while (batch < MAX_BATCH && published.get(slot = (int) (next + batch) & mask) == next + batch) {
+                try {
+                    chain.logAt(levels[slot], messages[slot], timestamps[slot], threadNames[slot]);
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    report(messages[slot], e);
+                }
+                messages[slot] = null; // do not keep the message alive until the slot is reused
+                threadNames[slot] = null;
+                batch++;
+            }
+            if (batch > 0) {
+                next += batch;
+                consumed = next;
+                idle = 0;
+            } else if (closing && claimed.get() == next) {
+                return;
+            } else if (++idle < IDLE_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+}
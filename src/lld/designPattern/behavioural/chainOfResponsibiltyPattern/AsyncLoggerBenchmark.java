@@ -0,0 +1,99 @@
+package lld.designPattern.behavioural.chainOfResponsibiltyPattern;
+
+import benchmark.LatencyHistogram;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * The synchronous handler chain against {@link AsyncLogger} (BLOCK and DROP) with 1 to 32 producer
+ * threads, each logging {@code messages} INFO messages as fast as it can. For each run it reports:
+ * <ul>
+ *     <li>calls/s: messages divided by the time until every producer returned from its last call</li>
+ *     <li>written/s: messages that reached the output, divided by the time until they had (for the async
+ *     logger this includes draining the ring on {@code close()})</li>
+ *     <li>p50/p99/max time of one {@code log} call on the producer's thread</li>
+ * </ul>
+ * System.out and System.err go to a temporary file for the whole run, through a PrintStream set up like
+ * the console one (buffered, flushed on every println), so each line still costs a stream lock and a write.
+ * <p>
+ * Usage: {@code java lld.designPattern.behavioural.chainOfResponsibiltyPattern.AsyncLoggerBenchmark [messages] [ringCapacity]}
+ * (defaults 100000 per producer, 65536)
+ */
+public class AsyncLoggerBenchmark {
+
+    private static final int[] PRODUCERS = {1, 2, 4, 8, 16, 32};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int capacity = args.length > 1 ? Integer.parseInt(args[1]) : AsyncLogger.DEFAULT_CAPACITY;
+
+        PrintStream console = System.out;
+        Path file = Files.createTempFile("async-logger-benchmark", ".log");
+        file.toFile().deleteOnExit();
+        PrintStream sink = new PrintStream(new BufferedOutputStream(new FileOutputStream(file.toFile())), true);
+        System.setOut(sink);
+        System.setErr(sink);
+        try {
+            console.printf("%-12s %9s %14s %14s %10s %10s %12s %10s%n",
+                    "logger", "producers", "calls/s", "written/s", "p50 ns", "p99 ns", "max ns", "dropped");
+            for (int producers : PRODUCERS) {
+                for (String mode : new String[]{"sync", "async-block", "async-drop"}) {
+                    Logger chain = new DebugLogger(new InfoLogger(new ErrorLogger(null)));
+                    AsyncLogger async = mode.equals("sync") ? null : LogManager.async(chain, capacity,
+                            mode.equals("async-block") ? Backpressure.BLOCK : Backpressure.DROP, LogLevel.ERROR);
+                    LatencyHistogram latency = new LatencyHistogram(mode);
+                    long start = System.nanoTime();
+                    run(async == null ? chain : async, producers, messages, latency);
+                    long callsDone = System.nanoTime() - start;
+                    long dropped = 0;
+                    if (async != null) {
+                        async.close();
+                        dropped = async.getDropped();
+                    }
+                    sink.flush();
+                    long written = System.nanoTime() - start;
+                    long total = (long) producers * messages;
+                    console.printf("%-12s %9d %14.0f %14.0f %10d %10d %12d %10d%n", mode, producers,
+                            total * 1e9 / callsDone, (total - dropped) * 1e9 / written,
+                            latency.percentile(50), latency.percentile(99), latency.max(), dropped);
+                }
+            }
+        } finally {
+            System.setOut(console);
+            System.setErr(console);
+            sink.close();
+        }
+    }
+
+    private static void run(Logger logger, int producers, int messages, LatencyHistogram latency)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < messages; i++) {
+                    long before = System.nanoTime();
+                    logger.log(LogLevel.INFO, "order processed");
+                    latency.recordSince(before);
+                }
+            }, "producer-" + p);
+            threads[p].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package lld.designPattern.behavioural.chainOfResponsibiltyPattern;
+
+/**
+ * What an {@link AsyncLogger} does with a message when its queue is full.
+ */
+public enum Backpressure {
+    /**
+     * Wait for room; nothing is lost, but a slow consumer slows the callers down.
+     */
+    BLOCK,
+    /**
+     * Drop the message and count it; callers never wait.
+     */
+    DROP,
+    /**
+     * Drop messages below the logger's keep level, wait for room for the rest (e.g. keep every ERROR).
+     */
+    DROP_BELOW_LEVEL
+}
@@ -6,15 +6,7 @@ public class DebugLogger extends LogManager {
     }
 
     @Override
-    public void log(LogLevel level, String message) {
-        if (level.getLevel() < minLogLevel.getLevel()) {
-            return;
-        }
-
-        if (level == LogLevel.DEBUG) {
-            System.out.println(formatMessage(level, message));
-        } else if (nextLogger != null) {
-            super.nextLogger(level, message);
-        }
+    protected LogSink sinkFor(LogLevel level) {
+        return level == LogLevel.DEBUG ? LogSink.STDOUT : null;
     }
 }
@@ -6,15 +6,7 @@ public class ErrorLogger extends LogManager {
     }
 
     @Override
-    public void log(LogLevel level, String message) {
-        if (level.getLevel() < minLogLevel.getLevel()) {
-            return;
-        }
-
-        if (level == LogLevel.ERROR) {
-            System.err.println(formatMessage(level, message));
-        } else if (nextLogger != null) {
-            super.nextLogger(level, message);
-        }
+    protected LogSink sinkFor(LogLevel level) {
+        return level == LogLevel.ERROR ? LogSink.STDERR : null;
     }
 }
@@ -0,0 +1,120 @@
+package lld.designPattern.behavioural.chainOfResponsibiltyPattern;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Throughput of logging {@code messages} INFO lines to a file through the handler chain, one thread, with
+ * the same formatting each time and only the output changed:
+ * <ul>
+ *     <li>stdout-redirect: System.out sent to the file through a PrintStream set up like the console one
+ *     (buffered, flushed on every line), i.e. what {@code java ... > app.log} costs</li>
+ *     <li>buffered-writer: {@code chain.setSink} to an appender writing through a 64 KB {@link BufferedWriter}</li>
+ *     <li>mmap-sink: {@code chain.setSink} to a {@link MemoryMappedAppender}</li>
+ *     <li>mmap-logger: the {@link MemoryMappedAppender} used as the logger itself, without the chain</li>
+ * </ul>
+ * The time includes closing the output. Files go to a temporary directory and are deleted after each run.
+ * <p>
+ * Usage: {@code java lld.designPattern.behavioural.chainOfResponsibiltyPattern.FileAppenderBenchmark [messages] [segmentMB] [flushPolicy]}
+ * (defaults 1000000, 64, NEVER; the full comparison uses 100000000 and needs about 8 GB of disk per run)
+ */
+public class FileAppenderBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        long messages = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        long segmentBytes = (args.length > 1 ? Long.parseLong(args[1]) : 64) << 20;
+        FlushPolicy flushPolicy = args.length > 2 ? FlushPolicy.valueOf(args[2]) : FlushPolicy.NEVER;
+
+        Path directory = Files.createTempDirectory("file-appender-benchmark");
+        System.out.printf("%-16s %12s %10s %14s %10s %8s%n", "appender", "messages", "seconds", "msgs/s", "MB/s", "files");
+        for (String mode : new String[]{"stdout-redirect", "buffered-writer", "mmap-sink", "mmap-logger"}) {
+            Logger chain = new DebugLogger(new InfoLogger(new ErrorLogger(null)));
+            PrintStream console = System.out;
+            List<Path> files = new ArrayList<>();
+            long start = System.nanoTime();
+            switch (mode) {
+                case "stdout-redirect": {
+                    Path file = directory.resolve("stdout.log");
+                    files.add(file);
+                    PrintStream redirected = new PrintStream(new BufferedOutputStream(new FileOutputStream(file.toFile())), true);
+                    System.setOut(redirected);
+                    try {
+                        run(chain, messages);
+                    } finally {
+                        System.setOut(console);
+                        redirected.close();
+                    }
+                    break;
+                }
+                case "buffered-writer": {
+                    Path file = directory.resolve("writer.log");
+                    files.add(file);
+                    try (BufferedWriterAppender appender = new BufferedWriterAppender(file)) {
+                        chain.setSink(appender);
+                        run(chain, messages);
+                    }
+                    break;
+                }
+                default: {
+                    MemoryMappedAppender appender = new MemoryMappedAppender(directory, mode, segmentBytes, 0, flushPolicy, 1000);
+                    try (appender) {
+                        chain.setSink(appender);
+                        run(mode.equals("mmap-sink") ? chain : appender, messages);
+                    }
+                    files.addAll(appender.segments());
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long bytes = 0;
+            for (Path file : files) {
+                bytes += Files.size(file);
+                Files.delete(file);
+            }
+            System.out.printf("%-16s %12d %10.2f %14.0f %10.1f %8d%n", mode, messages, seconds, messages / seconds,
+                    bytes / seconds / (1 << 20), files.size());
+        }
+        Files.delete(directory);
+    }
+
+    private static void run(Logger logger, long messages) {
+        for (long i = 0; i < messages; i++) {
+            logger.log(LogLevel.INFO, "order {} processed", i);
+        }
+    }
+
+    /**
+     * The usual buffered file appender. A Writer works on chars, so each line is decoded back from the
+     * formatter's bytes first.
+     */
+    private static class BufferedWriterAppender implements LogSink, AutoCloseable {
+        private final BufferedWriter writer;
+
+        BufferedWriterAppender(Path file) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file.toFile()), StandardCharsets.UTF_8), 1 << 16);
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int length) {
+            try {
+                writer.write(new String(bytes, offset, length, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package lld.designPattern.behavioural.chainOfResponsibiltyPattern;
+
+/**
+ * When a {@link MemoryMappedAppender} forces its mapped pages to disk. Lines are in the page cache as soon as
+ * they are written, so a crash of the JVM loses nothing under any policy; the policy decides how much a crash
+ * of the machine can lose.
+ */
+public enum FlushPolicy {
+    /**
+     * Never force; the kernel writes pages back on its own, as it does for any buffered file output.
+     */
+    NEVER,
+    /**
+     * Force a segment when it is rolled or the appender is closed.
+     */
+    ON_ROLL,
+    /**
+     * Like ON_ROLL, and also force at most once per flush interval, checked on each write.
+     */
+    PERIODIC,
+    /**
+     * Force after every line; nothing that was logged is lost, but every line waits for the disk.
+     */
+    EVERY_WRITE
+}
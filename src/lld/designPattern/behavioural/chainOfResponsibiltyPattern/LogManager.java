@@ -1,20 +1,170 @@
 package lld.designPattern.behavioural.chainOfResponsibiltyPattern;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Base of the handler chain. Every handler prints the levels its {@link #sinkFor} names and passes the
+ * rest to {@code nextLogger}. Instead of walking the chain on every call, each handler keeps a table with
+ * the handler every level ends at, so a call is one array load, and a filtered-out level a null check.
+ * The table is rebuilt by {@link #setMinLogLevel}, which updates the rest of the chain first; set the level
+ * on the head of the chain, since handlers before the one it is set on keep their old tables.
+ */
 public abstract class LogManager implements Logger {
     protected final Logger nextLogger;
     protected LogLevel minLogLevel;
+    private volatile LogSink sink;
+    // per LogLevel ordinal, the logger a message of that level ends at (see route); built on first use
+    private volatile Logger[] dispatch;
 
     LogManager(Logger nextLogger) {
         this.nextLogger = nextLogger;
         this.minLogLevel = LogLevel.INFO; // Default to INFO
     }
 
+    /**
+     * Wraps a logger chain so callers only put messages on a queue and a background thread does the
+     * printing. See {@link AsyncLogger}.
+     *
+     * @param capacity   queue slots, rounded up to a power of two
+     * @param keepLevel  with {@link Backpressure#DROP_BELOW_LEVEL}, the lowest level that still waits for room
+     */
+    public static AsyncLogger async(Logger chain, int capacity, Backpressure backpressure, LogLevel keepLevel) {
+        return new AsyncLogger(chain, capacity, backpressure, keepLevel);
+    }
+
+    public static AsyncLogger async(Logger chain) {
+        return async(chain, AsyncLogger.DEFAULT_CAPACITY, Backpressure.BLOCK, LogLevel.ERROR);
+    }
+
+    @Override
+    public void log(LogLevel level, String message) {
+        Logger target = route(level);
+        if (target != null) {
+            print(target, level, message, System.currentTimeMillis(), Thread.currentThread().getName());
+        }
+    }
+
+    @Override
+    public void logAt(LogLevel level, String message, long timestampMillis, String threadName) {
+        Logger target = route(level);
+        if (target != null) {
+            print(target, level, message, timestampMillis, threadName);
+        }
+    }
+
+    @Override
+    public void log(LogLevel level, String pattern, Object arg) {
+        logFormatted(level, pattern, 1, arg, null, 0);
+    }
+
+    @Override
+    public void log(LogLevel level, String pattern, Object arg1, Object arg2) {
+        logFormatted(level, pattern, 2, arg1, arg2, 0);
+    }
+
+    @Override
+    public void log(LogLevel level, String pattern, long arg) {
+        logFormatted(level, pattern, MessageFormatter.LONG_ARG, null, null, arg);
+    }
+
+    @Override
+    public boolean isEnabled(LogLevel level) {
+        return route(level) != null;
+    }
+
+    /**
+     * Where this handler prints {@code level} by default, or null to pass the message down the chain.
+     */
+    protected abstract LogSink sinkFor(LogLevel level);
+
+    private LogSink targetFor(LogLevel level) {
+        LogSink own = sinkFor(level);
+        LogSink shared = sink;
+        return own == null || shared == null ? own : shared;
+    }
+
+    /**
+     * The handler that prints {@code level}, or a logger at the end of the chain that is not a LogManager,
+     * or null if the level is filtered out.
+     */
+    private Logger route(LogLevel level) {
+        Logger[] table = dispatch;
+        if (table == null) {
+            table = compile();
+            dispatch = table;
+        }
+        return table[level.ordinal()];
+    }
+
+    private Logger[] compile() {
+        LogLevel[] levels = LogLevel.values();
+        Logger[] table = new Logger[levels.length];
+        for (LogLevel level : levels) {
+            table[level.ordinal()] = endOf(level);
+        }
+        return table;
+    }
+
+    /**
+     * Walks the chain as a message of this level would, checking every handler's level and sink.
+     */
+    private Logger endOf(LogLevel level) {
+        Logger logger = this;
+        while (logger instanceof LogManager) {
+            LogManager handler = (LogManager) logger;
+            if (level.getLevel() < handler.minLogLevel.getLevel()) {
+                return null;
+            }
+            if (handler.sinkFor(level) != null) {
+                return handler;
+            }
+            logger = handler.nextLogger;
+        }
+        return logger;
+    }
+
+    private static void print(Logger target, LogLevel level, String message, long timestampMillis, String threadName) {
+        if (target instanceof LogManager) {
+            LogSink sink = ((LogManager) target).targetFor(level);
+            MessageFormatter.current().write(sink, level, message, timestampMillis, threadName);
+        } else {
+            target.logAt(level, message, timestampMillis, threadName);
+        }
+    }
+
+    /**
+     * Like {@link #logAt}, but keeps the pattern and arguments apart until the handler is found, so nothing
+     * is built for a level that is filtered out. A logger at the end of the chain that is not a LogManager
+     * gets the rendered message.
+     */
+    private void logFormatted(LogLevel level, String pattern, int argCount, Object arg1, Object arg2, long longArg) {
+        Logger target = route(level);
+        if (target instanceof LogManager) {
+            LogSink sink = ((LogManager) target).targetFor(level);
+            MessageFormatter.current().write(sink, level, pattern, argCount, arg1, arg2, longArg,
+                    System.currentTimeMillis(), Thread.currentThread().getName());
+        } else if (target != null && target.isEnabled(level)) {
+            target.log(level, MessageFormatter.format(pattern, argCount, arg1, arg2, longArg));
+        }
+    }
+
     @Override
     public void setMinLogLevel(LogLevel level) {
         this.minLogLevel = level;
         if (nextLogger != null) {
             nextLogger.setMinLogLevel(level);
         }
+        dispatch = compile(); // after the rest of the chain, which the table is built from
+    }
+
+    @Override
+    public void setSink(LogSink sink) {
+        this.sink = sink;
+        if (nextLogger != null) {
+            nextLogger.setSink(sink);
+        }
     }
 
     protected void nextLogger(LogLevel level, String message) {
@@ -23,11 +173,25 @@ public abstract class LogManager implements Logger {
         }
     }
 
+    protected void nextLogger(LogLevel level, String message, long timestampMillis, String threadName) {
+        if (nextLogger != null) {
+            nextLogger.logAt(level, message, timestampMillis, threadName);
+        }
+    }
+
+    /**
+     * Builds a log line as a String. The handlers print through {@link MessageFormatter} instead, which
+     * writes the same line without allocating.
+     */
     protected String formatMessage(LogLevel level, String message) {
+        return formatMessage(level, message, System.currentTimeMillis(), Thread.currentThread().getName());
+    }
+
+    protected String formatMessage(LogLevel level, String message, long timestampMillis, String threadName) {
         return String.format("[%s][%s][Thread: %s] %s",
-                java.time.LocalDateTime.now(),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZoneId.systemDefault()),
                 level,
-                Thread.currentThread().getName(),
+                threadName,
                 message
         );
     }
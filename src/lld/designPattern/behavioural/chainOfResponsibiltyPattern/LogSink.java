@@ -0,0 +1,23 @@
+package lld.designPattern.behavioural.chainOfResponsibiltyPattern;
+
+/**
+ * Where the handlers of a chain put finished log lines, as UTF-8 bytes with the line separator included.
+ * By default each handler writes to the console; {@link Logger#setSink} points the whole chain at another
+ * sink, e.g. a {@link MemoryMappedAppender}.
+ * <p>
+ * The bytes belong to the caller and are reused once {@code write} returns, so a sink must copy them.
+ */
+public interface LogSink {
+
+    /**
+     * The current {@code System.out}, looked up on every write so redirection still works.
+     */
+    LogSink STDOUT = (bytes, offset, length) -> System.out.write(bytes, offset, length);
+
+    LogSink STDERR = (bytes, offset, length) -> System.err.write(bytes, offset, length);
+
+    void write(byte[] bytes, int offset, int length);
+
+    default void flush() {
+    }
+}
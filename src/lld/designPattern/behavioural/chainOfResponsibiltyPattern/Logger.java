@@ -3,6 +3,53 @@ package lld.designPattern.behavioural.chainOfResponsibiltyPattern;
 public interface Logger {
     void log(LogLevel level, String message);
 
+    /**
+     * Logs a message that was created earlier or on another thread, e.g. one taken from the queue of an
+     * {@link AsyncLogger}, keeping the time and thread of the original call.
+     */
+    default void logAt(LogLevel level, String message, long timestampMillis, String threadName) {
+        log(level, message);
+    }
+
+    /**
+     * Logs {@code pattern} with each {@code {}} replaced by an argument, e.g.
+     * {@code log(LogLevel.INFO, "order {} processed", orderId)}. The message is only built if the level
+     * is enabled, so a disabled call costs no formatting.
+     */
+    default void log(LogLevel level, String pattern, Object arg) {
+        if (isEnabled(level)) {
+            log(level, MessageFormatter.format(pattern, 1, arg, null, 0));
+        }
+    }
+
+    default void log(LogLevel level, String pattern, Object arg1, Object arg2) {
+        if (isEnabled(level)) {
+            log(level, MessageFormatter.format(pattern, 2, arg1, arg2, 0));
+        }
+    }
+
+    /**
+     * Same as {@link #log(LogLevel, String, Object)}, without boxing the argument.
+     */
+    default void log(LogLevel level, String pattern, long arg) {
+        if (isEnabled(level)) {
+            log(level, MessageFormatter.format(pattern, MessageFormatter.LONG_ARG, null, null, arg));
+        }
+    }
+
+    /**
+     * Whether a message at this level would be logged.
+     */
+    default boolean isEnabled(LogLevel level) {
+        return true;
+    }
+
+    /**
+     * Sends every line the chain prints to {@code sink} instead of the console; null goes back to the console.
+     */
+    default void setSink(LogSink sink) {
+    }
+
     /**
      * Sets the minimum log level. Messages below this level will not be logged.
      */
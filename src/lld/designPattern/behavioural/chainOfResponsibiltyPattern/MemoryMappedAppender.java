@@ -0,0 +1,219 @@
+package lld.designPattern.behavioural.chainOfResponsibiltyPattern;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes log lines into memory-mapped files, so a line costs a copy into the page cache instead of a
+ * write system call.
+ * <p>
+ * Output goes to segments named {@code <baseName>-00000.log}, {@code <baseName>-00001.log}, ... in the
+ * directory. Each segment is mapped at its full size up front. The appender rolls to a new segment when a
+ * line does not fit in the current one, or when the roll interval has passed. A rolled segment is truncated
+ * to the bytes actually written, so it reads like any other log file. A line longer than a whole segment is
+ * split across segments. When the mapped pages are forced to disk is up to the {@link FlushPolicy}.
+ * <p>
+ * It can be used two ways:
+ * <ul>
+ *     <li>as a {@link Logger} of its own (or the end of a chain), printing every enabled level</li>
+ *     <li>as a {@link LogSink} behind the handlers: {@code chain.setSink(appender)} sends each line the
+ *     handlers print to the file instead of the console</li>
+ * </ul>
+ * Writes are synchronized; the lines are formatted on the caller's thread before the lock is taken. Closing
+ * truncates the last segment while it is still mapped, which Linux and macOS allow but Windows does not.
+ */
+public class MemoryMappedAppender implements Logger, LogSink, AutoCloseable {
+
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+    private final Path directory;
+    private final String baseName;
+    private final int segmentBytes;
+    private final long rollIntervalMillis;
+    private final FlushPolicy flushPolicy;
+    private final long flushIntervalMillis;
+    private final List<Path> segments = new ArrayList<>();
+    private int nextIndex;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long segmentDeadline;
+    private long lastForce;
+    private boolean closed;
+    private volatile LogLevel minLogLevel = LogLevel.INFO;
+
+    /**
+     * @param segmentBytes        size of one segment, at most {@link Integer#MAX_VALUE}
+     * @param rollIntervalMillis  start a new segment after this long, or 0 to roll by size only
+     * @param flushIntervalMillis how often {@link FlushPolicy#PERIODIC} forces the pages to disk
+     */
+    public MemoryMappedAppender(Path directory, String baseName, long segmentBytes, long rollIntervalMillis,
+                                FlushPolicy flushPolicy, long flushIntervalMillis) throws IOException {
+        if (segmentBytes < 1 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentBytes must be between 1 and " + Integer.MAX_VALUE);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.baseName = baseName;
+        this.segmentBytes = (int) segmentBytes;
+        this.rollIntervalMillis = rollIntervalMillis;
+        this.flushPolicy = flushPolicy;
+        this.flushIntervalMillis = flushIntervalMillis;
+        openSegment(System.currentTimeMillis());
+    }
+
+    public MemoryMappedAppender(Path directory, String baseName) throws IOException {
+        this(directory, baseName, DEFAULT_SEGMENT_BYTES, 0, FlushPolicy.ON_ROLL, 0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("mmap-appender");
+        Logger chain = new DebugLogger(new InfoLogger(new ErrorLogger(null)));
+        try (MemoryMappedAppender appender = new MemoryMappedAppender(directory, "app", 128, 0, FlushPolicy.ON_ROLL, 0)) {
+            chain.setSink(appender);
+            chain.log(LogLevel.INFO, "This goes to the file, not the console");
+            chain.log(LogLevel.ERROR, "So does this error: {}", "disk full");
+            appender.log(LogLevel.INFO, "The appender is a Logger too, order {}", 42L);
+            chain.log(LogLevel.DEBUG, "This debug message won't be printed");
+        }
+        try (var files = Files.list(directory)) {
+            for (Path segment : (Iterable<Path>) files.sorted()::iterator) {
+                System.out.println("== " + segment.getFileName()); // Expected: 3 segments, one line each, since two do not fit in 128 bytes
+                System.out.print(Files.readString(segment));
+                Files.delete(segment);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Override
+    public void log(LogLevel level, String message) {
+        logAt(level, message, System.currentTimeMillis(), Thread.currentThread().getName());
+    }
+
+    @Override
+    public void logAt(LogLevel level, String message, long timestampMillis, String threadName) {
+        if (isEnabled(level)) {
+            MessageFormatter.current().write(this, level, message, timestampMillis, threadName);
+        }
+    }
+
+    @Override
+    public void log(LogLevel level, String pattern, Object arg) {
+        logFormatted(level, pattern, 1, arg, null, 0);
+    }
+
+    @Override
+    public void log(LogLevel level, String pattern, Object arg1, Object arg2) {
+        logFormatted(level, pattern, 2, arg1, arg2, 0);
+    }
+
+    @Override
+    public void log(LogLevel level, String pattern, long arg) {
+        logFormatted(level, pattern, MessageFormatter.LONG_ARG, null, null, arg);
+    }
+
+    @Override
+    public boolean isEnabled(LogLevel level) {
+        return level.getLevel() >= minLogLevel.getLevel();
+    }
+
+    @Override
+    public void setMinLogLevel(LogLevel level) {
+        minLogLevel = level;
+    }
+
+    @Override
+    public synchronized void write(byte[] bytes, int offset, int length) {
+        if (closed) {
+            throw new IllegalStateException("appender is closed");
+        }
+        long now = rollIntervalMillis > 0 || flushPolicy == FlushPolicy.PERIODIC ? System.currentTimeMillis() : 0;
+        try {
+            if (buffer.position() > 0 && (length > buffer.remaining() && length <= segmentBytes
+                    || rollIntervalMillis > 0 && now >= segmentDeadline)) {
+                roll(now);
+            }
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    roll(now);
+                }
+                int chunk = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (flushPolicy == FlushPolicy.EVERY_WRITE
+                || flushPolicy == FlushPolicy.PERIODIC && now - lastForce >= flushIntervalMillis) {
+            buffer.force();
+            lastForce = now;
+        }
+    }
+
+    /**
+     * Forces the current segment to disk, whatever the policy.
+     */
+    @Override
+    public synchronized void flush() {
+        if (!closed) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * The segments written so far, oldest first.
+     */
+    public synchronized List<Path> segments() {
+        return new ArrayList<>(segments);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            finishSegment();
+        }
+    }
+
+    private void logFormatted(LogLevel level, String pattern, int argCount, Object arg1, Object arg2, long longArg) {
+        if (isEnabled(level)) {
+            MessageFormatter.current().write(this, level, pattern, argCount, arg1, arg2, longArg,
+                    System.currentTimeMillis(), Thread.currentThread().getName());
+        }
+    }
+
+    private void roll(long now) throws IOException {
+        finishSegment();
+        openSegment(now);
+    }
+
+    private void openSegment(long now) throws IOException {
+        Path segment;
+        do {
+            segment = directory.resolve(String.format("%s-%05d.log", baseName, nextIndex++));
+        } while (Files.exists(segment)); // never overwrite the segments of an earlier run
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        segments.add(segment);
+        segmentDeadline = rollIntervalMillis > 0 ? now + rollIntervalMillis : Long.MAX_VALUE;
+    }
+
+    private void finishSegment() throws IOException {
+        if (flushPolicy != FlushPolicy.NEVER) {
+            buffer.force();
+        }
+        int written = buffer.position();
+        buffer = null; // the mapping goes away once the buffer is collected
+        channel.truncate(written);
+        channel.close();
+    }
+}
@@ -0,0 +1,238 @@
+package lld.designPattern.behavioural.chainOfResponsibiltyPattern;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Renders log lines without allocating, for the hot path of {@link LogManager}.
+ * <p>
+ * Every thread has one formatter with a reusable {@link StringBuilder} for the text and a byte buffer
+ * for its UTF-8 encoding, which goes to the {@link LogSink} in a single write.
+ * The timestamp is rendered by hand from the epoch millis and kept until the millisecond changes. The
+ * zone offset is looked up once and reused until the zone's next transition (e.g. daylight saving).
+ * <p>
+ * Patterns use {@code {}} for each argument. Strings, other {@link CharSequence}s, {@code long}s and
+ * boxed integers are appended without allocating; any other argument goes through {@code toString()}.
+ * Placeholders without an argument are printed as they are.
+ */
+final class MessageFormatter {
+
+    /**
+     * {@code argCount} value meaning "one argument, passed as the primitive {@code longArg}".
+     */
+    static final int LONG_ARG = -1;
+
+    private static final ThreadLocal<MessageFormatter> CURRENT = ThreadLocal.withInitial(MessageFormatter::new);
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final int TIMESTAMP_LENGTH = 23; // 2026-01-31T23:59:59.999
+    private static final int MAX_RETAINED_BYTES = 1 << 16;
+
+    private static volatile OffsetWindow offsetWindow;
+
+    private final StringBuilder text = new StringBuilder(256);
+    private final char[] timestamp = new char[TIMESTAMP_LENGTH];
+    private long timestampMillis = Long.MIN_VALUE;
+    private byte[] bytes = new byte[512];
+
+    private MessageFormatter() {
+    }
+
+    static MessageFormatter current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Renders a pattern into a new String, for loggers that only take finished messages.
+     */
+    static String format(String pattern, int argCount, Object arg1, Object arg2, long longArg) {
+        MessageFormatter formatter = current();
+        formatter.text.setLength(0);
+        formatter.appendPattern(pattern, argCount, arg1, arg2, longArg);
+        return formatter.text.toString();
+    }
+
+    /**
+     * Writes {@code [time][LEVEL][Thread: name] message} and a line separator.
+     */
+    void write(LogSink sink, LogLevel level, String message, long timestampMillis, String threadName) {
+        startLine(level, timestampMillis, threadName);
+        text.append(message);
+        flushTo(sink);
+    }
+
+    /**
+     * Same as {@link #write(LogSink, LogLevel, String, long, String)} with the arguments filled into
+     * {@code pattern}.
+     */
+    void write(LogSink sink, LogLevel level, String pattern, int argCount, Object arg1, Object arg2,
+               long longArg, long timestampMillis, String threadName) {
+        startLine(level, timestampMillis, threadName);
+        appendPattern(pattern, argCount, arg1, arg2, longArg);
+        flushTo(sink);
+    }
+
+    private void startLine(LogLevel level, long millis, String threadName) {
+        if (millis != timestampMillis) {
+            renderTimestamp(millis);
+        }
+        text.setLength(0);
+        text.append('[').append(timestamp, 0, TIMESTAMP_LENGTH).append("][").append(level.name())
+                .append("][Thread: ").append(threadName).append("] ");
+    }
+
+    private void appendPattern(String pattern, int argCount, Object arg1, Object arg2, long longArg) {
+        int from = 0;
+        int argument = 0;
+        int placeholder;
+        while ((placeholder = pattern.indexOf("{}", from)) >= 0) {
+            text.append(pattern, from, placeholder);
+            if (argCount == LONG_ARG && argument == 0) {
+                text.append(longArg);
+            } else if (argument < argCount) {
+                appendArgument(argument == 0 ? arg1 : arg2);
+            } else {
+                text.append("{}");
+            }
+            argument++;
+            from = placeholder + 2;
+        }
+        text.append(pattern, from, pattern.length());
+    }
+
+    private void appendArgument(Object argument) {
+        if (argument instanceof CharSequence) {
+            text.append((CharSequence) argument);
+        } else if (argument instanceof Long || argument instanceof Integer
+                || argument instanceof Short || argument instanceof Byte) {
+            text.append(((Number) argument).longValue());
+        } else {
+            text.append(argument);
+        }
+    }
+
+    private void flushTo(LogSink sink) {
+        text.append(LINE_SEPARATOR);
+        int length = encode();
+        sink.write(bytes, 0, length);
+        if (bytes.length > MAX_RETAINED_BYTES) {
+            bytes = new byte[512]; // a huge message should not pin a huge buffer to the thread
+            text.setLength(0);
+            text.trimToSize();
+        }
+    }
+
+    /**
+     * UTF-8 encodes the text into {@link #bytes} and returns the number of bytes.
+     */
+    private int encode() {
+        int length = text.length();
+        if (bytes.length < length * 3) {
+            bytes = new byte[Math.max(bytes.length * 2, length * 3)];
+        }
+        byte[] out = bytes;
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                out[n++] = (byte) c;
+            } else if (c < 0x800) {
+                out[n++] = (byte) (0xC0 | (c >> 6));
+                out[n++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    out[n++] = (byte) (0xF0 | (codePoint >> 18));
+                    out[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    out[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    out[n++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    out[n++] = '?'; // unpaired surrogate, as the JDK's encoder replaces it
+                }
+            } else {
+                out[n++] = (byte) (0xE0 | (c >> 12));
+                out[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Renders local date and time as {@code yyyy-MM-ddTHH:mm:ss.SSS} with civil-from-days arithmetic
+     * (proleptic Gregorian, as {@link java.time.LocalDate}).
+     */
+    private void renderTimestamp(long millis) {
+        long local = millis + offsetMillis(millis);
+        long epochDay = Math.floorDiv(local, 86_400_000L);
+        int millisOfDay = (int) Math.floorMod(local, 86_400_000L);
+
+        long z = epochDay + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        digits(0, year, 4);
+        timestamp[4] = '-';
+        digits(5, month, 2);
+        timestamp[7] = '-';
+        digits(8, day, 2);
+        timestamp[10] = 'T';
+        digits(11, millisOfDay / 3_600_000, 2);
+        timestamp[13] = ':';
+        digits(14, millisOfDay / 60_000 % 60, 2);
+        timestamp[16] = ':';
+        digits(17, millisOfDay / 1000 % 60, 2);
+        timestamp[19] = '.';
+        digits(20, millisOfDay % 1000, 3);
+        timestampMillis = millis;
+    }
+
+    private void digits(int at, int value, int count) {
+        for (int i = at + count - 1; i >= at; i--) {
+            timestamp[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static long offsetMillis(long millis) {
+        OffsetWindow window = offsetWindow;
+        if (window == null || millis < window.from || millis >= window.until) {
+            window = OffsetWindow.at(millis);
+            offsetWindow = window;
+        }
+        return window.offsetMillis;
+    }
+
+    /**
+     * The system zone's offset and the time span it holds for, between two transitions.
+     */
+    private static final class OffsetWindow {
+        final long from;
+        final long until;
+        final long offsetMillis;
+
+        OffsetWindow(long from, long until, long offsetMillis) {
+            this.from = from;
+            this.until = until;
+            this.offsetMillis = offsetMillis;
+        }
+
+        static OffsetWindow at(long millis) {
+            ZoneRules rules = ZoneId.systemDefault().getRules();
+            Instant instant = Instant.ofEpochMilli(millis);
+            ZoneOffsetTransition previous = rules.previousTransition(instant);
+            ZoneOffsetTransition next = rules.nextTransition(instant);
+            return new OffsetWindow(
+                    previous == null ? Long.MIN_VALUE : previous.toEpochSecond() * 1000,
+                    next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000,
+                    rules.getOffset(instant).getTotalSeconds() * 1000L);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package lld.designPattern.behavioural.observerPattern;
+
+import benchmark.LatencyHistogram;
+import lld.designPattern.behavioural.observerPattern.observable.AsyncDispatcher;
+import lld.designPattern.behavioural.observerPattern.observable.Event;
+import lld.designPattern.behavioural.observerPattern.observable.Observable;
+import lld.designPattern.behavioural.observerPattern.observable.impl.IphoneObservableImpl;
+import lld.designPattern.behavioural.observerPattern.observer.BatchObserver;
+import lld.designPattern.behavioural.observerPattern.observer.Observer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restock fan-out from 10K subscribers up to {@code maxSubscribers}, publishing {@code restocks} events back
+ * to back, with observers that only count what they get (so the numbers are the cost of notifying, not of
+ * sending email). For each run it reports:
+ * <ul>
+ *     <li>writer p50/max: time of one {@code notifySubscriber()} call on the thread that changed the stock</li>
+ *     <li>notifications/s: events times subscribers, divided by the time until every subscriber had them</li>
+ * </ul>
+ * Modes: {@code sync} is {@link IphoneObservableImpl} as it was, calling every observer on the writer's
+ * thread; {@code async} and {@code async-batch} go through an {@link AsyncDispatcher}, the latter with
+ * {@link BatchObserver}s.
+ * <p>
+ * Usage: {@code java lld.designPattern.behavioural.observerPattern.FanOutBenchmark [maxSubscribers] [restocks] [shards] [workers]}
+ * (defaults 1000000, 16, 64, number of CPUs; 10000000 subscribers needs about 1 GB of heap)
+ */
+public class FanOutBenchmark {
+
+    public static void main(String[] args) {
+        int maxSubscribers = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int restocks = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int shards = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int workers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%-12s %12s %9s %14s %14s %18s%n",
+                "mode", "subscribers", "restocks", "writer p50 ns", "writer max ns", "notifications/s");
+        for (int subscribers = 10_000; subscribers <= maxSubscribers; subscribers *= 10) {
+            for (String mode : new String[]{"sync", "async", "async-batch"}) {
+                AsyncDispatcher dispatcher = mode.equals("sync") ? null
+                        : new AsyncDispatcher(shards, workers, AsyncDispatcher.DEFAULT_MAX_BATCH);
+                Observable observable = new IphoneObservableImpl(dispatcher);
+                Counting[] observers = new Counting[subscribers];
+                for (int i = 0; i < subscribers; i++) {
+                    observers[i] = mode.equals("async-batch") ? new CountingBatchObserver() : new CountingObserver();
+                    observable.subscribe(observers[i]);
+                }
+
+                LatencyHistogram writer = new LatencyHistogram(mode);
+                long start = System.nanoTime();
+                for (int r = 0; r < restocks; r++) {
+                    long before = System.nanoTime();
+                    observable.notifySubscriber();
+                    writer.recordSince(before);
+                }
+                if (dispatcher != null) {
+                    dispatcher.close();
+                }
+                long elapsed = System.nanoTime() - start;
+
+                long notified = 0;
+                for (Counting observer : observers) {
+                    notified += observer.count();
+                }
+                if (notified != (long) subscribers * restocks) {
+                    throw new IllegalStateException(mode + ": " + notified + " notifications, expected "
+                            + (long) subscribers * restocks);
+                }
+                System.out.printf("%-12s %12d %9d %14d %14d %18.0f%n", mode, subscribers, restocks,
+                        writer.percentile(50), writer.max(), notified * 1e9 / elapsed);
+            }
+        }
+    }
+
+    private interface Counting extends Observer {
+        long count();
+    }
+
+    private static class CountingObserver implements Counting {
+        private long count;
+
+        @Override
+        public void update() {
+            count++;
+        }
+
+        @Override
+        public long count() {
+            return count;
+        }
+    }
+
+    private static class CountingBatchObserver implements BatchObserver, Counting {
+        private long count;
+
+        @Override
+        public void update(List<Event> events) {
+            count += events.size();
+        }
+
+        @Override
+        public long count() {
+            return count;
+        }
+    }
+}
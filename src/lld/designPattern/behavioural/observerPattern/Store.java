@@ -1,5 +1,6 @@
 package lld.designPattern.behavioural.observerPattern;
 
+import lld.designPattern.behavioural.observerPattern.observable.AsyncDispatcher;
 import lld.designPattern.behavioural.observerPattern.observable.Observable;
 import lld.designPattern.behavioural.observerPattern.observable.impl.IphoneObservableImpl;
 import lld.designPattern.behavioural.observerPattern.observer.Observer;
@@ -30,6 +31,14 @@ public class Store {
         iphoneObservable.setStockCount(-5);
         iphoneObservable.setStockCount(43);
 
+        // Same restock, but the emails and SMS go out on the dispatcher's workers
+        try (AsyncDispatcher dispatcher = new AsyncDispatcher(4, 2, AsyncDispatcher.DEFAULT_MAX_BATCH)) {
+            Observable asyncIphoneObservable = new IphoneObservableImpl(dispatcher);
+            asyncIphoneObservable.subscribe(new EmailObserverImpl("satish", asyncIphoneObservable));
+            asyncIphoneObservable.subscribe(new SmsObserverImpl("99023", asyncIphoneObservable));
+            asyncIphoneObservable.notifySubscriber();
+        } // Expected: one email and one SMS, printed before close() returns
+
 
     }
 
@@ -0,0 +1,223 @@
+package lld.designPattern.behavioural.observerPattern.observable;
+
+import lld.designPattern.behavioural.observerPattern.observer.BatchObserver;
+import lld.designPattern.behavioural.observerPattern.observer.Observer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Notifies observers on a worker pool instead of the thread that changed the {@link Observable}.
+ * <p>
+ * Subscribers are split into shards by hash code. {@link #publish} only appends the event to every
+ * shard's queue and schedules the shards that are idle, so the publishing thread pays for the number of
+ * shards, not the number of subscribers. A worker takes a shard, drains up to {@code maxBatch} queued
+ * events and delivers them to each of the shard's observers: a {@link BatchObserver} gets them in one
+ * {@code update(List)} call, any other observer one {@code update(Event)} call per event. A shard runs on
+ * one worker at a time, so every observer sees events in the order they were queued, and the shard is put
+ * back on the pool after each batch, so one large shard cannot starve the others.
+ * <p>
+ * An observer that throws is counted in {@link #getFailures()} and skipped for the rest of that batch.
+ * A shard's lock is held while it delivers, so observers must not block, and subscribing to a shard
+ * waits for its current batch.
+ */
+public class AsyncDispatcher implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_BATCH = 64;
+
+    private final Shard[] shards;
+    private final ExecutorService workers;
+    private final int maxBatch;
+    private final AtomicLong published = new AtomicLong();
+    private final LongAdder notified = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public AsyncDispatcher(int shards, int workers, int maxBatch) {
+        if (shards < 1 || workers < 1 || maxBatch < 1) {
+            throw new IllegalArgumentException("shards, workers and maxBatch must be positive");
+        }
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard();
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workers, task -> {
+            Thread thread = new Thread(task, "observer-dispatch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxBatch = maxBatch;
+    }
+
+    public AsyncDispatcher() {
+        this(4 * Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors(),
+                DEFAULT_MAX_BATCH);
+    }
+
+    public void subscribe(Observer observer) {
+        shardOf(observer).add(observer);
+    }
+
+    public void unsubscribe(Observer observer) {
+        shardOf(observer).remove(observer);
+    }
+
+    public int getSubscriberCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            count += shard.size();
+        }
+        return count;
+    }
+
+    /**
+     * Queues the event for every subscriber and returns without waiting for any of them.
+     */
+    public void publish(Event event) {
+        published.incrementAndGet();
+        for (Shard shard : shards) {
+            shard.pending.offer(event);
+            shard.schedule();
+        }
+    }
+
+    /**
+     * Waits until every event published before this call has been delivered to every shard.
+     *
+     * @return false if that did not happen within the timeout
+     */
+    public boolean awaitDelivered(long timeout, TimeUnit unit) throws InterruptedException {
+        long target = published.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Shard shard : shards) {
+            while (shard.delivered < target) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (System.nanoTime() - deadline > 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(100_000);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Events delivered to observers, counting each event once per observer, however it was batched.
+     */
+    public long getNotified() {
+        return notified.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Delivers everything published so far, then stops the workers. Publishing afterwards throws. An
+     * interrupt does not cut this short; the thread's interrupt flag is set again before it returns.
+     */
+    @Override
+    public void close() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                awaitDelivered(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        workers.shutdown();
+        while (true) {
+            try {
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Shard shardOf(Observer observer) {
+        int hash = observer.hashCode() * 0x9E3779B9; // spread, so sequential hash codes do not pile up
+        return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+    }
+
+    private final class Shard implements Runnable {
+        private final List<Observer> observers = new ArrayList<>(); // guarded by this
+        private final Queue<Event> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final List<Event> batch = new ArrayList<>(); // only used by the task running the shard
+        private volatile long delivered;
+
+        synchronized void add(Observer observer) {
+            observers.add(observer);
+        }
+
+        synchronized void remove(Observer observer) {
+            observers.remove(observer);
+        }
+
+        synchronized int size() {
+            return observers.size();
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                workers.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            Event event;
+            while (batch.size() < maxBatch && (event = pending.poll()) != null) {
+                batch.add(event);
+            }
+            if (!batch.isEmpty()) {
+                deliver(List.copyOf(batch));
+                delivered += batch.size(); // only this task writes it
+                batch.clear();
+            }
+            scheduled.set(false);
+            if (!pending.isEmpty()) {
+                schedule(); // more than one batch queued, or an event arrived after the last poll
+            }
+        }
+
+        private synchronized void deliver(List<Event> events) {
+            long count = 0;
+            for (Observer observer : observers) {
+                try {
+                    if (observer instanceof BatchObserver) {
+                        ((BatchObserver) observer).update(events);
+                        count += events.size();
+                    } else {
+                        for (Event event : events) {
+                            observer.update(event);
+                            count++;
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    failures.increment();
+                }
+            }
+            notified.add(count);
+        }
+    }
+}
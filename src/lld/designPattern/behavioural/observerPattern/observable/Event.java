@@ -0,0 +1,37 @@
+package lld.designPattern.behavioural.observerPattern.observable;
+
+/**
+ * A change an {@link Observable} tells its observers about: the product is back in stock.
+ */
+public final class Event {
+
+    private final Observable source;
+    private final int stockCount;
+    private final long publishedNanos;
+
+    public Event(Observable source, int stockCount) {
+        this.source = source;
+        this.stockCount = stockCount;
+        this.publishedNanos = System.nanoTime();
+    }
+
+    public Observable getSource() {
+        return source;
+    }
+
+    public int getStockCount() {
+        return stockCount;
+    }
+
+    /**
+     * {@link System#nanoTime()} when the event was created, to measure how long delivery took.
+     */
+    public long getPublishedNanos() {
+        return publishedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Event{stockCount=" + stockCount + '}';
+    }
+}
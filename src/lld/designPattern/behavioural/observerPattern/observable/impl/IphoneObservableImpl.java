@@ -1,5 +1,7 @@
 package lld.designPattern.behavioural.observerPattern.observable.impl;
 
+import lld.designPattern.behavioural.observerPattern.observable.AsyncDispatcher;
+import lld.designPattern.behavioural.observerPattern.observable.Event;
 import lld.designPattern.behavioural.observerPattern.observable.Observable;
 import lld.designPattern.behavioural.observerPattern.observer.Observer;
 
@@ -10,23 +12,50 @@ public class IphoneObservableImpl implements Observable {
 
     static int iphoneCount = 0;
     List<Observer> observerList = new ArrayList<>();
+    // when set, subscribers live in the dispatcher and are notified on its workers
+    private final AsyncDispatcher dispatcher;
+
+    public IphoneObservableImpl() {
+        this(null);
+    }
+
+    /**
+     * Notifies subscribers through {@code dispatcher}, so {@link #setStockCount} returns without waiting
+     * for the fan-out.
+     */
+    public IphoneObservableImpl(AsyncDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
 
     @Override
     public void subscribe(Observer observer) {
-        observerList.add(observer);
+        if (dispatcher != null) {
+            dispatcher.subscribe(observer);
+        } else {
+            observerList.add(observer);
+        }
 
     }
 
     @Override
     public void unsubscribe(Observer observer) {
-        observerList.remove(observer);
+        if (dispatcher != null) {
+            dispatcher.unsubscribe(observer);
+        } else {
+            observerList.remove(observer);
+        }
     }
 
     @Override
     public void notifySubscriber() {
 
+        Event event = new Event(this, iphoneCount);
+        if (dispatcher != null) {
+            dispatcher.publish(event);
+            return;
+        }
         observerList.forEach(each -> {
-            each.update();
+            each.update(event);
         });
 
     }
@@ -39,11 +68,12 @@ public class IphoneObservableImpl implements Observable {
     @Override
     public void setStockCount(int stockCount) {
 
-        //was it outOffStock stock before ? yes notify
-        if (iphoneCount == 0 && stockCount > 0) {
+        //was it outOffStock stock before ? yes notify (after the update, so the event has the new count)
+        boolean wasOutOfStock = iphoneCount == 0;
+        iphoneCount = iphoneCount + stockCount;
+        if (wasOutOfStock && stockCount > 0) {
             notifySubscriber();
         }
-        iphoneCount = iphoneCount + stockCount;
 
     }
 }
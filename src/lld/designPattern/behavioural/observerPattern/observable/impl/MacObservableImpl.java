@@ -1,5 +1,6 @@
 package lld.designPattern.behavioural.observerPattern.observable.impl;
 
+import lld.designPattern.behavioural.observerPattern.observable.Event;
 import lld.designPattern.behavioural.observerPattern.observable.Observable;
 import lld.designPattern.behavioural.observerPattern.observer.Observer;
 
@@ -25,7 +26,8 @@ public class MacObservableImpl implements Observable {
     @Override
     public void notifySubscriber() {
 
-        observerList.forEach(each -> each.update());
+        Event event = new Event(this, macCount);
+        observerList.forEach(each -> each.update(event));
     }
 
     @Override
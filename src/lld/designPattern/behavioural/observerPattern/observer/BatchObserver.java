@@ -0,0 +1,30 @@
+package lld.designPattern.behavioural.observerPattern.observer;
+
+import lld.designPattern.behavioural.observerPattern.observable.Event;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Observer that takes its events in batches, e.g. to send one digest email or one bulk SMS request for
+ * several restocks. An {@link lld.designPattern.behavioural.observerPattern.observable.AsyncDispatcher}
+ * gives it every event that queued up since its last delivery in one call; synchronous observables give
+ * it one event at a time.
+ */
+public interface BatchObserver extends Observer {
+
+    /**
+     * The events in the order they were published. The list cannot be modified and may be kept.
+     */
+    void update(List<Event> events);
+
+    @Override
+    default void update(Event event) {
+        update(Collections.singletonList(event));
+    }
+
+    @Override
+    default void update() {
+        update(Collections.emptyList());
+    }
+}
@@ -1,7 +1,17 @@
 package lld.designPattern.behavioural.observerPattern.observer;
 
+import lld.designPattern.behavioural.observerPattern.observable.Event;
+
 public interface Observer {
 
     void update();
 
+    /**
+     * Called with the event that caused the notification. Observers that do not need it keep
+     * implementing {@link #update()} only.
+     */
+    default void update(Event event) {
+        update();
+    }
+
 }